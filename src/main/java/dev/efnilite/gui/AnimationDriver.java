@@ -0,0 +1,217 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.animation.MenuAnimation;
+import dev.efnilite.gui.item.MenuItem;
+import dev.efnilite.gui.util.Task;
+import dev.efnilite.gui.util.collections.SlotTable;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The single task which advances the opening animations of all menus, once per tick.
+ * This is started once in {@link Menu#init(Plugin)}. An animation stops when its menu is closed.
+ * On regionized servers, each animation is advanced by a task on the region of its viewer instead,
+ * so animations in different regions run in parallel.
+ *
+ * @author Efnilite
+ */
+public final class AnimationDriver {
+
+    private final List<Playback> playing = new ArrayList<>();
+    private final Set<Playback> regional = ConcurrentHashMap.newKeySet();
+
+    private long ticks;
+    private long lastTickNanos;
+    private long totalTickNanos;
+    private Plugin plugin;
+    private BukkitTask task;
+
+    AnimationDriver() {
+
+    }
+
+    /**
+     * Starts advancing animations.
+     *
+     * @param   plugin
+     *          The plugin
+     */
+    void start(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+        task = Task.create(plugin)
+                .repeat(1)
+                .execute(this::tick)
+                .run();
+    }
+
+    /**
+     * Stops advancing animations and drops all playing animations.
+     */
+    void stop() {
+        if (task != null) {
+            task.cancel();
+        }
+        for (Playback playback : playing) {
+            playback.menu.playback = null;
+        }
+        playing.clear();
+        for (Playback playback : regional) {
+            playback.menu.playback = null;
+        }
+        regional.clear();
+    }
+
+    /**
+     * Plays an animation in a menu, replacing the animation that was playing in it.
+     * The first step is shown on the next tick.
+     *
+     * @param   menu
+     *          The menu
+     *
+     * @param   animation
+     *          The compiled animation
+     */
+    public void play(@NotNull Menu menu, @NotNull MenuAnimation animation) {
+        if (animation.getFrames().length == 0) {
+            menu.playback = null;
+            return;
+        }
+
+        Playback playback = new Playback(menu, animation.getFrames(), animation.getTicksPerStep());
+        menu.playback = playback; // a previous playback is dropped on the next tick
+        if (!Task.isRegionized()) {
+            playing.add(playback);
+            return;
+        }
+
+        regional.add(playback);
+        BukkitTask[] bound = new BukkitTask[1];
+        bound[0] = Task.create(plugin)
+                .entity(menu.getPlayer())
+                .repeat(1)
+                .execute(() -> {
+                    if (menu.playback == playback && !menu.deactivated && playback.advance()) {
+                        return;
+                    }
+                    if (menu.playback == playback) {
+                        menu.playback = null;
+                    }
+                    regional.remove(playback);
+                    bound[0].cancel();
+                })
+                .run();
+        menu.task(bound[0]);
+    }
+
+    /**
+     * Stops the animation that is playing in a menu. Slots that haven't been shown yet stay empty.
+     *
+     * @param   menu
+     *          The menu
+     */
+    public void stop(@NotNull Menu menu) {
+        menu.playback = null;
+    }
+
+    private void tick() {
+        if (!regional.isEmpty()) { // drop animations of which the task was cancelled with their menu
+            regional.removeIf(playback -> playback.menu.playback != playback || playback.menu.deactivated);
+        }
+        if (playing.isEmpty()) {
+            lastTickNanos = 0;
+            return;
+        }
+
+        long start = System.nanoTime();
+        for (int i = playing.size() - 1; i >= 0; i--) { // backwards, so the swapped in playback has already been advanced
+            Playback playback = playing.get(i);
+            if (playback.menu.playback == playback && !playback.menu.deactivated && playback.advance()) {
+                continue;
+            }
+
+            if (playback.menu.playback == playback) {
+                playback.menu.playback = null;
+            }
+            Playback last = playing.remove(playing.size() - 1);
+            if (i < playing.size()) {
+                playing.set(i, last);
+            }
+        }
+
+        ticks++;
+        lastTickNanos = System.nanoTime() - start;
+        totalTickNanos += lastTickNanos;
+    }
+
+    /**
+     * Returns the amount of animations that are playing.
+     *
+     * @return the amount of active animations
+     */
+    public int getActiveAnimations() {
+        return playing.size() + regional.size();
+    }
+
+    /**
+     * Returns the time the last tick with active animations spent on advancing them.
+     * On regionized servers, animations are advanced per region, so this isn't measured.
+     *
+     * @return the time in nanoseconds, or 0 if no animations were playing in the last tick.
+     */
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    /**
+     * Returns the average time a tick with active animations spent on advancing them.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getAverageTickNanos() {
+        return ticks == 0 ? 0 : totalTickNanos / ticks;
+    }
+
+    /**
+     * An animation that is playing in a menu.
+     */
+    static final class Playback {
+
+        private final Menu menu;
+        private final int[][] frames;
+        private final int ticksPerStep;
+        private int step;
+        private int wait = 1;
+
+        private Playback(Menu menu, int[][] frames, int ticksPerStep) {
+            this.menu = menu;
+            this.frames = frames;
+            this.ticksPerStep = ticksPerStep;
+        }
+
+        /**
+         * Waits one tick, and shows the next step if it's time to.
+         *
+         * @return false if the animation has finished
+         */
+        private boolean advance() {
+            if (--wait > 0) {
+                return true;
+            }
+            wait = ticksPerStep;
+
+            SlotTable<MenuItem> items = menu.getSlotTable();
+            for (int slot : frames[step]) {
+                if (items.contains(slot)) {
+                    menu.send(slot, menu.render(slot));
+                }
+            }
+            return ++step < frames.length;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.MenuItem;
+import dev.efnilite.gui.util.Workers;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Builds items on the worker pool. Only items of which {@link MenuItem#isAsyncSafe()} returns true are built.
+ * The amount of items waiting to be built is bounded: when it's full, new builds are rejected immediately,
+ * so callers can fall back to building on the main thread instead of queueing more work.
+ *
+ * @author Efnilite
+ */
+public final class BuildPipeline {
+
+    /**
+     * The default maximum amount of items that may be waiting to be built.
+     */
+    public static final int DEFAULT_CAPACITY = 512;
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder built = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private volatile int capacity = DEFAULT_CAPACITY;
+
+    BuildPipeline() {
+
+    }
+
+    /**
+     * Sets the maximum amount of items that may be waiting to be built.
+     *
+     * @param   items
+     *          The capacity
+     */
+    public void capacity(int items) {
+        if (items < 1) {
+            throw new IllegalArgumentException("Capacity cannot be under 1");
+        }
+        this.capacity = items;
+    }
+
+    /**
+     * Builds items on the worker pool.
+     *
+     * @param   items
+     *          The items. Items that aren't async-safe, and null items, are skipped.
+     *
+     * @param   session
+     *          The session the items are built for. If it closes before all items have been built, the build stops.
+     *          Null if the build shouldn't stop.
+     *
+     * @return a future with the built stacks at the index of their item, and null for skipped items.
+     * It completes on a worker thread, and fails with a {@link RejectedExecutionException} if the queue is full
+     * or with a {@link CancellationException} if the session has closed.
+     */
+    public CompletableFuture<ItemStack[]> build(@NotNull MenuItem[] items, @Nullable Menu.Session session) {
+        int amount = 0;
+        for (MenuItem item : items) {
+            if (item != null && item.isAsyncSafe()) {
+                amount++;
+            }
+        }
+        if (amount == 0) {
+            return CompletableFuture.completedFuture(new ItemStack[items.length]);
+        }
+
+        if (queued.addAndGet(amount) > capacity) {
+            queued.addAndGet(-amount);
+            rejected.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Build queue is full"));
+        }
+
+        int reserved = amount;
+        CompletableFuture<ItemStack[]> future = new CompletableFuture<>();
+        try {
+            Workers.get().execute(() -> {
+                try {
+                    ItemStack[] stacks = new ItemStack[items.length];
+                    for (int i = 0; i < items.length; i++) {
+                        if (future.isDone() || session != null && session.isClosed()) { // viewer closed the menu
+                            cancelled.increment();
+                            future.completeExceptionally(new CancellationException("Session has closed"));
+                            return;
+                        }
+
+                        MenuItem item = items[i];
+                        if (item != null && item.isAsyncSafe()) {
+                            stacks[i] = item.build();
+                            built.increment();
+                        }
+                    }
+                    future.complete(stacks);
+                } catch (RuntimeException ex) {
+                    future.completeExceptionally(ex);
+                } finally {
+                    queued.addAndGet(-reserved);
+                }
+            });
+        } catch (RejectedExecutionException ex) { // pool has been shut down
+            queued.addAndGet(-reserved);
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Returns the amount of items waiting to be built.
+     *
+     * @return the amount of queued items
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the amount of items that have been built on the worker pool.
+     *
+     * @return the amount of built items
+     */
+    public long getBuilt() {
+        return built.sum();
+    }
+
+    /**
+     * Returns the amount of builds that were rejected because the queue was full.
+     *
+     * @return the amount of rejected builds
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the amount of builds that stopped because their session closed.
+     *
+     * @return the amount of cancelled builds
+     */
+    public long getCancelled() {
+        return cancelled.sum();
+    }
+}
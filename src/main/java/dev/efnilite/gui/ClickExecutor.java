@@ -0,0 +1,285 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.util.Workers;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+
+/**
+ * Runs the click handlers of {@link dev.efnilite.gui.item.MenuItem#clickAsync} on virtual threads,
+ * so handlers that wait for a database or the network don't block the tick.
+ * The handlers of a player run one at a time, in the order of the clicks. Each player may have a limited amount
+ * of handlers running or waiting; further clicks are ignored until one finishes. This is started once in {@link Menu#init(Plugin)}.
+ *
+ * @author Efnilite
+ */
+public final class ClickExecutor {
+
+    /**
+     * The default maximum amount of handlers a player may have running or waiting.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+
+    private final Map<UUID, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Long::max, 0);
+
+    private volatile int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private Plugin plugin;
+    private ExecutorService executor;
+
+    ClickExecutor() {
+
+    }
+
+    /**
+     * Starts running handlers.
+     *
+     * @param   plugin
+     *          The plugin
+     */
+    void start(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+        this.executor = Workers.newVirtualExecutor("GUI Click");
+    }
+
+    /**
+     * Stops running handlers. Running handlers are interrupted and waiting handlers are dropped.
+     */
+    void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        lanes.clear();
+    }
+
+    /**
+     * Sets the maximum amount of handlers a player may have running or waiting.
+     *
+     * @param   handlers
+     *          The maximum
+     */
+    public void maxInFlight(int handlers) {
+        if (handlers < 1) {
+            throw new IllegalArgumentException("Maximum cannot be under 1");
+        }
+        this.maxInFlight = handlers;
+    }
+
+    /**
+     * Runs a click handler after the handlers the player clicked before.
+     *
+     * @param   event
+     *          The click
+     *
+     * @param   handler
+     *          The handler
+     *
+     * @return false if the handler won't run, because the player has too many handlers in flight or the menu isn't open.
+     */
+    public boolean submit(@NotNull MenuClickEvent event, @NotNull BiConsumer<MenuClickEvent, ClickHandle> handler) {
+        Menu menu = event.menu();
+        Menu.Session session = menu.getSession();
+        if (session == null || executor == null) {
+            return false;
+        }
+
+        Player player = event.getPlayer();
+        Click click = new Click(event, handler, new ClickHandle(menu, session, player), System.nanoTime());
+        UUID viewer = player.getUniqueId();
+        while (true) {
+            Lane lane = lanes.computeIfAbsent(viewer, Lane::new);
+            synchronized (lane) {
+                if (lane.retired) { // removed after it ran out of clicks, use a new one
+                    continue;
+                }
+                if (lane.pending >= maxInFlight) {
+                    rejected.increment();
+                    return false;
+                }
+
+                if (!lane.running) {
+                    try {
+                        executor.execute(lane::drain); // waits for the lock before it takes the click
+                    } catch (RejectedExecutionException ex) { // executor has been stopped
+                        rejected.increment();
+                        return false;
+                    }
+                    lane.running = true;
+                }
+                lane.pending++;
+                lane.queue.add(click);
+                inFlight.incrementAndGet();
+                submitted.increment();
+                return true;
+            }
+        }
+    }
+
+    private void run(Click click) {
+        long start = System.nanoTime();
+        if (!click.handle.isActive()) { // player has closed the menu while waiting
+            cancelled.increment();
+            return;
+        }
+
+        try {
+            click.handler.accept(click.event, click.handle);
+            completed.increment();
+        } catch (RuntimeException ex) {
+            failed.increment();
+            plugin.getLogger().log(Level.SEVERE, "Error while handling click in slot " + click.event.slot(), ex);
+        }
+
+        long end = System.nanoTime();
+        totalWaitNanos.add(start - click.created);
+        totalRunNanos.add(end - start);
+        maxLatencyNanos.accumulate(end - click.created);
+    }
+
+    /**
+     * Returns the amount of handlers which are running or waiting.
+     *
+     * @return the amount of handlers in flight
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the amount of handlers that have been accepted.
+     *
+     * @return the amount of submitted handlers
+     */
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    /**
+     * Returns the amount of handlers that finished without throwing.
+     *
+     * @return the amount of completed handlers
+     */
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    /**
+     * Returns the amount of handlers that threw an exception.
+     *
+     * @return the amount of failed handlers
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * Returns the amount of clicks that were ignored because the player had too many handlers in flight.
+     *
+     * @return the amount of rejected handlers
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Returns the amount of handlers that didn't run because the menu was closed while they were waiting.
+     *
+     * @return the amount of cancelled handlers
+     */
+    public long getCancelled() {
+        return cancelled.sum();
+    }
+
+    /**
+     * Returns the average time handlers waited for the handlers the player clicked before.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getAverageWaitNanos() {
+        long handled = completed.sum() + failed.sum();
+        return handled == 0 ? 0 : totalWaitNanos.sum() / handled;
+    }
+
+    /**
+     * Returns the average time handlers took to run.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getAverageRunNanos() {
+        long handled = completed.sum() + failed.sum();
+        return handled == 0 ? 0 : totalRunNanos.sum() / handled;
+    }
+
+    /**
+     * Returns the longest time between a click and the end of its handler.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    private record Click(MenuClickEvent event, BiConsumer<MenuClickEvent, ClickHandle> handler, ClickHandle handle, long created) {
+
+    }
+
+    /**
+     * The handlers of one player, which run one at a time on a single thread.
+     */
+    private final class Lane {
+
+        private final UUID viewer;
+        private final ArrayDeque<Click> queue = new ArrayDeque<>();
+        private int pending;
+        private boolean running;
+        private boolean retired;
+
+        private Lane(UUID viewer) {
+            this.viewer = viewer;
+        }
+
+        private void drain() {
+            while (true) {
+                Click click;
+                synchronized (this) {
+                    click = queue.poll();
+                    if (click == null) { // no clicks left, so drop this lane until the next click
+                        running = false;
+                        retired = true;
+                        lanes.remove(viewer, this);
+                        return;
+                    }
+                }
+
+                try {
+                    run(click);
+                } finally {
+                    synchronized (this) {
+                        pending--;
+                    }
+                    inFlight.decrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package dev.efnilite.gui;
+
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Given to click handlers that run off the main thread, see {@link dev.efnilite.gui.item.MenuItem#clickAsync}.
+ * Handlers must not touch the menu, the player or the click event directly. Instead, changes are scheduled
+ * with {@link #sync(Runnable)}, which only runs them if the player still has the menu open.
+ * The id and name of the player are read when the click happens, so handlers can use them on any thread.
+ *
+ * @author Efnilite
+ */
+public final class ClickHandle {
+
+    private final Menu menu;
+    private final Menu.Session session;
+    private final Player player;
+    private final UUID viewerId;
+    private final String viewerName;
+
+    ClickHandle(Menu menu, Menu.Session session, Player player) {
+        this.menu = menu;
+        this.session = session;
+        this.player = player;
+        this.viewerId = player.getUniqueId();
+        this.viewerName = player.getName();
+    }
+
+    /**
+     * Runs a task on the thread of the player, if the menu is still open in the session in which it was clicked.
+     *
+     * @param   runnable
+     *          The task, which may change the menu.
+     *
+     * @return a future which completes after the task has run, or fails with a {@link CancellationException}
+     * if the menu was closed first. Handlers may wait for it.
+     */
+    public CompletableFuture<Void> sync(@NotNull Runnable runnable) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (session.isClosed()) {
+            future.completeExceptionally(new CancellationException("Session has closed"));
+            return future;
+        }
+
+        menu.sync(() -> {
+            if (!session.isActive()) { // player has closed the menu in the meantime
+                future.completeExceptionally(new CancellationException("Session has closed"));
+                return;
+            }
+
+            try {
+                runnable.run();
+                future.complete(null);
+            } catch (RuntimeException ex) {
+                future.completeExceptionally(ex);
+                throw ex;
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Updates the menu on the thread of the player, if it's still open.
+     *
+     * @return a future which completes after the menu has been updated
+     * @see #sync(Runnable)
+     */
+    public CompletableFuture<Void> update() {
+        return sync(menu::update);
+    }
+
+    /**
+     * Returns whether the menu is still open in the session in which it was clicked.
+     * Handlers can use this to stop early.
+     *
+     * @return true if the session hasn't been closed
+     */
+    public boolean isActive() {
+        return !session.isClosed();
+    }
+
+    /**
+     * Returns the menu that was clicked. Only change it from {@link #sync(Runnable)}.
+     *
+     * @return the menu
+     */
+    public Menu getMenu() {
+        return menu;
+    }
+
+    /**
+     * Returns the id of the player who clicked. Can be used on any thread.
+     *
+     * @return the id of the player
+     */
+    public UUID getViewerId() {
+        return viewerId;
+    }
+
+    /**
+     * Returns the name of the player who clicked, as it was when they clicked. Can be used on any thread.
+     *
+     * @return the name of the player
+     */
+    public String getViewerName() {
+        return viewerName;
+    }
+
+    /**
+     * Returns the player who clicked. Only access it from {@link #sync(Runnable)}.
+     *
+     * @return the player
+     */
+    public Player getPlayer() {
+        return player;
+    }
+}
@@ -0,0 +1,582 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.MenuItem;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Sort, filter and search indexes over the display items of a {@link PagedMenu}.
+ * Orderings and filter results are computed once per key and extended when items are appended,
+ * so changing the active sort or filters doesn't re-sort or re-test every item. Inserting, removing or replacing
+ * an entry splices it into or out of the displayed view at its sorted index, instead of computing the view again.
+ *
+ * @author Efnilite
+ */
+final class DisplayIndex implements PageSource {
+
+    private final DisplayList entries;
+    private final Map<String, Comparator<MenuItem>> comparators = new HashMap<>();
+    private final Map<String, Predicate<MenuItem>> predicates = new HashMap<>();
+
+    // Caches, which cover the first 'indexed' entries
+    private int indexed;
+    private int modifications; // of the entries, when the caches were last brought up to date
+    private final Map<String, int[]> orderings = new HashMap<>();
+    private final Map<String, BitSet> matches = new HashMap<>();
+    private SearchIndex search;
+
+    // The active sort, filters and search query
+    private String sort;
+    private String query;
+    private final Set<String> filters = new LinkedHashSet<>();
+
+    /**
+     * The positions of the entries that are displayed, in order. Null if every entry is displayed in insertion order.
+     */
+    private int[] view;
+    private int viewLength;
+    private boolean outdated;
+
+    /**
+     * The first position in the view which has changed since the last {@link #pollChanged()}.
+     */
+    private int changedFrom = Integer.MAX_VALUE;
+
+    DisplayIndex(@NotNull DisplayList entries) {
+        this.entries = entries;
+        this.modifications = entries.getModifications();
+    }
+
+    void sortKey(@NotNull String name, @NotNull Comparator<MenuItem> comparator) {
+        comparators.put(name, comparator);
+        orderings.remove(name);
+        outdated = true;
+    }
+
+    void filterKey(@NotNull String name, @NotNull Predicate<MenuItem> predicate) {
+        predicates.put(name, predicate);
+        matches.remove(name);
+        outdated = true;
+    }
+
+    void sortBy(@Nullable String name) {
+        if (name != null && !comparators.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown sort key " + name);
+        }
+        this.sort = name;
+        outdated = true;
+    }
+
+    void filterBy(@NotNull String... names) {
+        for (String name : names) {
+            if (!predicates.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown filter " + name);
+            }
+        }
+        filters.clear();
+        filters.addAll(Arrays.asList(names));
+        outdated = true;
+    }
+
+    void search(@Nullable String query) {
+        this.query = query == null || query.isEmpty() ? null : query;
+        outdated = true;
+    }
+
+    @Nullable
+    String getQuery() {
+        return query;
+    }
+
+    /**
+     * Drops all caches. Required when entries have been replaced or removed.
+     *
+     * @param   from
+     *          The first entry which has been replaced or removed
+     */
+    private void reset(int from) {
+        indexed = 0;
+        orderings.clear();
+        matches.clear();
+        search = null;
+        outdated = true;
+        changedFrom = Math.min(changedFrom, view == null ? from : 0); // positions in a sorted or filtered view may all have moved
+    }
+
+    /**
+     * Adds entries after the last entry. The caches are extended with the new entries when they're next used.
+     *
+     * @param   items
+     *          The entries
+     */
+    void append(@NotNull List<MenuItem> items) {
+        sync();
+        entries.addAll(items);
+        modifications = entries.getModifications();
+    }
+
+    /**
+     * Replaces all entries. The caches are kept for the entries before the first difference.
+     *
+     * @param   items
+     *          The new entries
+     */
+    void set(@NotNull List<MenuItem> items) {
+        sync();
+        int common = 0;
+        int max = Math.min(entries.size(), items.size());
+        while (common < max && entries.get(common) == items.get(common)) {
+            common++;
+        }
+
+        int size = entries.size();
+        entries.subList(common, size).clear();
+        entries.addAll(items.subList(common, items.size()));
+        modifications = entries.getModifications();
+        if (common < size) { // entries have been replaced or removed, not only appended
+            reset(common);
+        }
+    }
+
+    /**
+     * Inserts an entry, shifting the entries at and after its position.
+     *
+     * @param   position
+     *          The position
+     *
+     * @param   item
+     *          The entry
+     */
+    void insert(int position, @NotNull MenuItem item) {
+        sync();
+        entries.add(position, item);
+        modifications = entries.getModifications();
+        indexed++;
+
+        for (Map.Entry<String, int[]> entry : orderings.entrySet()) {
+            entry.setValue(place(shift(entry.getValue(), position, 1), position, comparators.get(entry.getKey())));
+        }
+        for (Map.Entry<String, BitSet> entry : matches.entrySet()) {
+            shift(entry.getValue(), position, 1);
+            entry.getValue().set(position, predicates.get(entry.getKey()).test(item));
+        }
+        if (search != null) {
+            search.insert(position, item);
+        }
+
+        int after = position;
+        if (view != null) {
+            shiftView(position, 1);
+            after = isVisible(position) ? splice(position) : -1;
+        }
+        changed(-1, after);
+    }
+
+    /**
+     * Removes an entry, shifting the entries after its position.
+     *
+     * @param   position
+     *          The position
+     *
+     * @return the removed entry
+     */
+    @NotNull
+    MenuItem remove(int position) {
+        sync();
+        int before = getViewIndex(position);
+        MenuItem removed = entries.remove(position);
+        modifications = entries.getModifications();
+        indexed--;
+
+        for (Map.Entry<String, int[]> entry : orderings.entrySet()) {
+            entry.setValue(shift(entry.getValue(), position, -1));
+        }
+        for (Map.Entry<String, BitSet> entry : matches.entrySet()) {
+            shift(entry.getValue(), position, -1);
+        }
+        if (search != null) {
+            search.remove(position);
+        }
+
+        if (view != null) {
+            if (before != -1) {
+                cut(before);
+            }
+            shiftView(position + 1, -1);
+        }
+        changed(before, -1);
+        return removed;
+    }
+
+    /**
+     * Replaces an entry.
+     *
+     * @param   position
+     *          The position
+     *
+     * @param   item
+     *          The new entry
+     *
+     * @return the replaced entry
+     */
+    @NotNull
+    MenuItem replace(int position, @NotNull MenuItem item) {
+        sync();
+        int before = getViewIndex(position);
+        MenuItem replaced = entries.set(position, item);
+        modifications = entries.getModifications();
+
+        for (Map.Entry<String, int[]> entry : orderings.entrySet()) {
+            entry.setValue(place(shift(entry.getValue(), position, 0), position, comparators.get(entry.getKey())));
+        }
+        for (Map.Entry<String, BitSet> entry : matches.entrySet()) {
+            entry.getValue().set(position, predicates.get(entry.getKey()).test(item));
+        }
+        if (search != null) {
+            search.remove(position);
+            search.insert(position, item);
+        }
+
+        int after = position;
+        if (view != null) {
+            if (before != -1) {
+                cut(before);
+            }
+            after = isVisible(position) ? splice(position) : -1;
+        }
+        changed(before, after);
+        return replaced;
+    }
+
+    /**
+     * Returns the first position in the view which has changed since the last call, and forgets the change.
+     *
+     * @return the first changed position, or {@link Integer#MAX_VALUE} if nothing has changed.
+     */
+    int pollChanged() {
+        sync();
+        int from = changedFrom;
+        changedFrom = Integer.MAX_VALUE;
+        return from;
+    }
+
+    @Override
+    public int size() {
+        sync();
+        return view == null ? entries.size() : view.length;
+    }
+
+    @Override
+    public @NotNull List<MenuItem> fetch(int offset, int limit) {
+        sync();
+        if (view == null) {
+            int size = entries.size();
+            return entries.subList(Math.min(offset, size), Math.min(offset + limit, size));
+        }
+
+        int end = Math.min(offset + limit, view.length);
+        List<MenuItem> page = new ArrayList<>(Math.max(end - offset, 0));
+        for (int i = offset; i < end; i++) {
+            page.add(entries.get(view[i]));
+        }
+        return page;
+    }
+
+    /**
+     * Brings the caches up to date with the entries, and recomputes the view if necessary.
+     */
+    private void sync() {
+        int size = entries.size();
+        if (entries.getModifications() != modifications) { // changed directly instead of through this index
+            reset(0);
+            modifications = entries.getModifications();
+        }
+
+        int[] before = view;
+        int beforeLength = viewLength;
+
+        if (size > indexed) { // appended, extend the caches with the new entries only
+            for (Map.Entry<String, int[]> entry : orderings.entrySet()) {
+                entry.setValue(extend(entry.getValue(), comparators.get(entry.getKey()), indexed, size));
+            }
+            for (Map.Entry<String, BitSet> entry : matches.entrySet()) {
+                test(entry.getValue(), predicates.get(entry.getKey()), indexed, size);
+            }
+            if (search != null) {
+                for (int i = indexed; i < size; i++) {
+                    search.add(entries.get(i));
+                }
+            }
+            indexed = size;
+            outdated = true;
+        }
+
+        if (outdated) {
+            view = computeView();
+            viewLength = view == null ? indexed : view.length;
+            outdated = false;
+            changedFrom = Math.min(changedFrom, getFirstDifference(before, beforeLength));
+        }
+    }
+
+    // marks the view as changed after a single entry was changed, which was at view index before and is now at view index after
+    private void changed(int before, int after) {
+        viewLength = view == null ? indexed : view.length;
+        if (before != -1) {
+            changedFrom = Math.min(changedFrom, before);
+        }
+        if (after != -1) {
+            changedFrom = Math.min(changedFrom, after);
+        }
+    }
+
+    /**
+     * Returns the index in the view of an entry, found by binary search.
+     *
+     * @return the index, or -1 if the entry isn't displayed.
+     */
+    private int getViewIndex(int position) {
+        if (view == null) {
+            return position < indexed ? position : -1;
+        }
+        if (!isVisible(position)) {
+            return -1;
+        }
+
+        int index = locate(view, position, getComparator());
+        if (index < view.length && view[index] == position) {
+            return index;
+        }
+        for (int i = 0; i < view.length; i++) { // the entry has changed in place since it was sorted
+            if (view[i] == position) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // whether an entry passes the active filters and search query, which have been computed by the last view
+    private boolean isVisible(int position) {
+        if (query != null && !search.search(query).get(position)) {
+            return false;
+        }
+        for (String filter : filters) {
+            if (!matches.get(filter).get(position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // adds an entry to the view at its sorted index, and returns that index
+    private int splice(int position) {
+        int index = locate(view, position, getComparator());
+        int[] result = new int[view.length + 1];
+        System.arraycopy(view, 0, result, 0, index);
+        result[index] = position;
+        System.arraycopy(view, index, result, index + 1, view.length - index);
+        view = result;
+        return index;
+    }
+
+    // removes an index from the view
+    private void cut(int index) {
+        int[] result = new int[view.length - 1];
+        System.arraycopy(view, 0, result, 0, index);
+        System.arraycopy(view, index + 1, result, index, view.length - index - 1);
+        view = result;
+    }
+
+    // moves the positions in the view from a position on, after entries were inserted or removed
+    private void shiftView(int from, int by) {
+        for (int i = 0; i < view.length; i++) {
+            if (view[i] >= from) {
+                view[i] += by;
+            }
+        }
+    }
+
+    @Nullable
+    private Comparator<MenuItem> getComparator() {
+        return sort == null ? null : comparators.get(sort);
+    }
+
+    // the first position at which the view differs from the given previous view
+    private int getFirstDifference(int[] before, int beforeLength) {
+        int common = Math.min(viewLength, beforeLength);
+        for (int i = 0; i < common; i++) {
+            if ((before == null ? i : before[i]) != (view == null ? i : view[i])) {
+                return i;
+            }
+        }
+        return viewLength == beforeLength ? Integer.MAX_VALUE : common;
+    }
+
+    private int[] computeView() {
+        if (sort == null && filters.isEmpty() && query == null) {
+            return null;
+        }
+
+        BitSet allowed = null;
+        if (query != null) {
+            if (search == null) { // built on the first search
+                search = new SearchIndex();
+                for (int i = 0; i < indexed; i++) {
+                    search.add(entries.get(i));
+                }
+            }
+            allowed = (BitSet) search.search(query).clone();
+        }
+        for (String filter : filters) {
+            BitSet match = matches.computeIfAbsent(filter, name -> {
+                BitSet set = new BitSet(indexed);
+                test(set, predicates.get(name), 0, indexed);
+                return set;
+            });
+
+            if (allowed == null) {
+                allowed = (BitSet) match.clone();
+            } else {
+                allowed.and(match);
+            }
+        }
+
+        int[] order = sort == null ? null : orderings.computeIfAbsent(sort, name -> extend(new int[0], comparators.get(name), 0, indexed));
+        int[] result = new int[allowed == null ? indexed : allowed.cardinality()];
+        int length = 0;
+        for (int i = 0; i < indexed; i++) {
+            int position = order == null ? i : order[i];
+            if (allowed == null || allowed.get(position)) {
+                result[length++] = position;
+            }
+        }
+        return result;
+    }
+
+    private void test(BitSet set, Predicate<MenuItem> predicate, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (predicate.test(entries.get(i))) {
+                set.set(i);
+            }
+        }
+    }
+
+    /**
+     * Sorts the new positions from until to, and merges them into an existing ordering.
+     */
+    private int[] extend(int[] ordering, Comparator<MenuItem> comparator, int from, int to) {
+        int[] added = new int[to - from];
+        for (int i = 0; i < added.length; i++) {
+            added[i] = from + i;
+        }
+        sort(added, new int[added.length], 0, added.length, comparator);
+
+        int[] result = new int[ordering.length + added.length];
+        int a = 0, b = 0, i = 0;
+        while (a < ordering.length && b < added.length) { // existing entries first on ties, to keep insertion order
+            result[i++] = comparator.compare(entries.get(added[b]), entries.get(ordering[a])) < 0 ? added[b++] : ordering[a++];
+        }
+        while (a < ordering.length) {
+            result[i++] = ordering[a++];
+        }
+        while (b < added.length) {
+            result[i++] = added[b++];
+        }
+        return result;
+    }
+
+    /**
+     * Moves the positions in an ordering after an entry was inserted (by 1), removed (by -1) or replaced (by 0).
+     * The position itself is removed from the ordering, unless an entry was inserted.
+     */
+    private static int[] shift(int[] ordering, int position, int by) {
+        boolean inserted = by > 0;
+        int[] result = new int[inserted ? ordering.length : ordering.length - 1];
+        int length = 0;
+        for (int value : ordering) {
+            if (inserted) {
+                result[length++] = value >= position ? value + 1 : value;
+            } else if (value != position) {
+                result[length++] = value > position ? value + by : value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a position to an ordering which doesn't contain it yet. Among equal entries, positions stay ascending.
+     */
+    private int[] place(int[] ordering, int position, Comparator<MenuItem> comparator) {
+        int low = locate(ordering, position, comparator);
+        int[] result = new int[ordering.length + 1];
+        System.arraycopy(ordering, 0, result, 0, low);
+        result[low] = position;
+        System.arraycopy(ordering, low, result, low + 1, ordering.length - low);
+        return result;
+    }
+
+    /**
+     * Returns the first index in an ordering of which the entry doesn't come before the entry at a position.
+     * Entries are ordered by the comparator, and equal entries by their position.
+     *
+     * @param   comparator
+     *          The comparator, or null if the ordering only follows the positions.
+     */
+    private int locate(int[] ordering, int position, @Nullable Comparator<MenuItem> comparator) {
+        MenuItem item = entries.get(position);
+        int low = 0, high = ordering.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int compared = comparator == null ? 0 : comparator.compare(item, entries.get(ordering[middle]));
+            if (compared > 0 || compared == 0 && position > ordering[middle]) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Moves the bits from a position by one, up when inserting or down when removing the bit at the position.
+     */
+    static void shift(BitSet set, int position, int by) {
+        int length = set.length();
+        if (length <= position) {
+            return;
+        }
+
+        BitSet moved = set.get(by > 0 ? position : position + 1, Math.max(length, position + 1));
+        set.clear(position, length);
+        int start = by > 0 ? position + 1 : position;
+        for (int bit = moved.nextSetBit(0); bit >= 0; bit = moved.nextSetBit(bit + 1)) {
+            set.set(start + bit);
+        }
+    }
+
+    // stable merge sort of positions by the entries they point to
+    private void sort(int[] positions, int[] buffer, int from, int to, Comparator<MenuItem> comparator) {
+        if (to - from < 2) {
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        sort(positions, buffer, from, middle, comparator);
+        sort(positions, buffer, middle, to, comparator);
+
+        System.arraycopy(positions, from, buffer, from, to - from);
+        int a = from, b = middle, i = from;
+        while (a < middle && b < to) {
+            positions[i++] = comparator.compare(entries.get(buffer[b]), entries.get(buffer[a])) < 0 ? buffer[b++] : buffer[a++];
+        }
+        while (a < middle) {
+            positions[i++] = buffer[a++];
+        }
+        while (b < to) {
+            positions[i++] = buffer[b++];
+        }
+    }
+}
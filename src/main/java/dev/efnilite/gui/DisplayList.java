@@ -0,0 +1,31 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.MenuItem;
+
+import java.util.ArrayList;
+
+/**
+ * The display items of a menu. Counts its changes, so a menu can tell whether the list
+ * has been changed directly since it last looked at it.
+ *
+ * @author Efnilite
+ */
+final class DisplayList extends ArrayList<MenuItem> {
+
+    private int replaced;
+
+    @Override
+    public MenuItem set(int index, MenuItem element) {
+        replaced++;
+        return super.set(index, element);
+    }
+
+    /**
+     * Returns the amount of changes made to this list. Only meant to be compared with an earlier result.
+     *
+     * @return the amount of changes
+     */
+    int getModifications() {
+        return modCount + replaced;
+    }
+}
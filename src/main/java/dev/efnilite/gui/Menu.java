@@ -1,25 +1,31 @@
 package dev.efnilite.gui;
 
 import dev.efnilite.gui.animation.MenuAnimation;
-import dev.efnilite.gui.item.Item;
+import dev.efnilite.gui.item.FillerItem;
 import dev.efnilite.gui.item.MenuItem;
-import dev.efnilite.gui.util.Numbers;
+import dev.efnilite.gui.util.ComponentCache;
+import dev.efnilite.gui.util.RowLayout;
 import dev.efnilite.gui.util.Task;
-import dev.efnilite.gui.util.event.EventWatcher;
+import dev.efnilite.gui.util.TimingWheel;
+import dev.efnilite.gui.util.collections.SlotTable;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Class for general Menu handling.
@@ -27,29 +33,53 @@ import java.util.*;
  * @author Efnilite
  */
 @SuppressWarnings("unused")
-public class Menu implements EventWatcher {
+public class Menu {
 
     /**
      * The plugin instance using this library, required for task management.
      */
     public static Plugin PLUGIN;
 
-    protected boolean deactivated = false;
-    protected UUID inventoryId;
-    protected Player player;
+    private static MenuDispatcher dispatcher;
+    private static AnimationDriver animationDriver;
+    private static ProgressiveRenderer renderer;
+    private static BuildPipeline pipeline;
+    private static ClickExecutor clickExecutor;
+
+    protected volatile boolean deactivated = false;
+    boolean audited = false;
+    protected volatile Player player;
+    protected Inventory inventory;
+    protected Session session;
     protected Material filler = null;
     protected MenuAnimation animation = null;
+    volatile AnimationDriver.Playback playback = null;
+    volatile ProgressiveRenderer.Job renderJob = null;
+    protected long renderBudget = 0;
+    protected MenuTemplate template = null;
 
     // Title
     protected Component titleComponent;
     protected String titleString;
 
     protected final int rows;
-    protected final Map<Integer, MenuItem> items = new HashMap<>();
-    protected final List<Integer> evenlyDistributedRows = new ArrayList<>();
+    protected final SlotTable<MenuItem> items;
+    protected final RowLayout[] rowLayouts = new RowLayout[6];
+    protected final List<BukkitTask> tasks = new ArrayList<>();
 
-    private final static Map<UUID, UUID> openMenus = new HashMap<>();
-    private final static List<Menu> disabledMenus = new ArrayList<>();
+    // At most one timer per slot, with the item that scheduled it
+    private TimingWheel.Timer[] timers;
+    private MenuItem[] timerOwners;
+
+    // The items the player currently sees
+    protected final ItemStack[] sent = new ItemStack[SlotTable.SIZE];
+    protected long sentMask;
+    protected long sentSlots;
+    protected long skippedSlots;
+
+    // Menus of players in different regions send slots at the same time
+    private static final LongAdder totalSentSlots = new LongAdder();
+    private static final LongAdder totalSkippedSlots = new LongAdder();
 
     /**
      * Initializes this library instance.
@@ -60,25 +90,102 @@ public class Menu implements EventWatcher {
     public static void init(@NotNull Plugin plugin) {
         PLUGIN = plugin;
 
-        Task.create(plugin)
-                .repeat(5 * 20)
-                .execute(() -> {
-                    if (openMenus.keySet().size() == 0) {
-                        for (Menu menu : disabledMenus) {
-                            menu.unregisterAll();
-                        }
-                        disabledMenus.clear();
-                    }
-                })
-                .run();
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        dispatcher = new MenuDispatcher();
+        dispatcher.start(plugin);
+
+        if (animationDriver != null) {
+            animationDriver.stop();
+        }
+        animationDriver = new AnimationDriver();
+        animationDriver.start(plugin);
+
+        if (renderer != null) {
+            renderer.stop();
+        }
+        renderer = new ProgressiveRenderer();
+        renderer.start(plugin);
+
+        pipeline = new BuildPipeline();
+
+        if (clickExecutor != null) {
+            clickExecutor.stop();
+        }
+        clickExecutor = new ClickExecutor();
+        clickExecutor.start(plugin);
+    }
+
+    /**
+     * Returns the listener which routes inventory events to open menus.
+     *
+     * @return the dispatcher, or null if {@link #init(Plugin)} hasn't been called yet.
+     */
+    public static MenuDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Returns the task which plays the opening animations of all menus.
+     *
+     * @return the animation driver, or null if {@link #init(Plugin)} hasn't been called yet.
+     */
+    public static AnimationDriver getAnimationDriver() {
+        return animationDriver;
+    }
+
+    /**
+     * Returns the task which renders menus that are opened progressively.
+     *
+     * @return the renderer, or null if {@link #init(Plugin)} hasn't been called yet.
+     */
+    public static ProgressiveRenderer getRenderer() {
+        return renderer;
+    }
+
+    /**
+     * Returns the pipeline which builds items on the worker pool.
+     *
+     * @return the pipeline, or null if {@link #init(Plugin)} hasn't been called yet.
+     */
+    public static BuildPipeline getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * Returns the executor which runs click handlers off the main thread.
+     *
+     * @return the click executor, or null if {@link #init(Plugin)} hasn't been called yet.
+     */
+    public static ClickExecutor getClickExecutor() {
+        return clickExecutor;
     }
 
     Menu(int rows) {
+        this(rows, new SlotTable<>());
+    }
+
+    private Menu(int rows, SlotTable<MenuItem> items) {
         if (rows < 1 || rows > 6) {
             throw new IllegalArgumentException("Rows is below 1 or above 6");
         }
         this.rows = rows;
-        this.inventoryId = UUID.randomUUID();
+        this.items = items;
+    }
+
+    /**
+     * Constructor for a menu which is backed by a template.
+     * The items of the template are shared until this menu changes a slot.
+     *
+     * @param   template
+     *          The template
+     */
+    Menu(@NotNull MenuTemplate template) {
+        this(template.getRows(), template.items.copy());
+
+        this.titleComponent = template.getTitle();
+        this.template = template;
     }
 
     /**
@@ -123,7 +230,7 @@ public class Menu implements EventWatcher {
      * @return the instance of this class
      */
     public Menu item(int slot, MenuItem item) {
-        if (slot > rows * 9 || slot < 0) {
+        if (slot >= rows * 9 || slot < 0) {
             throw new IllegalArgumentException("Slot " + slot + " is not in inventory");
         }
 
@@ -141,11 +248,27 @@ public class Menu implements EventWatcher {
      * @return the instance of this class
      */
     public Menu distributeRowEvenly(int... rows) {
+        return alignRow(RowLayout.EVEN, rows);
+    }
+
+    /**
+     * Sets the layout of a specific set of rows. The items in these rows will be moved accordingly on opening.
+     * Starts from 0 and goes up to 5.
+     *
+     * @param   layout
+     *          The layout, like {@link RowLayout#EVEN} or {@link RowLayout#pattern(String)}
+     *
+     * @param   rows
+     *          The rows
+     *
+     * @return the instance of this class
+     */
+    public Menu alignRow(@NotNull RowLayout layout, int... rows) {
         for (int row : rows) {
             if (row < 0 || row > 5) {
                 throw new IllegalArgumentException("Row must be above 0 and below 6!");
             }
-            evenlyDistributedRows.add(row);
+            rowLayouts[row] = layout;
         }
         return this;
     }
@@ -157,7 +280,7 @@ public class Menu implements EventWatcher {
      * @return the instance of this class
      */
     public Menu distributeRowsEvenly() {
-        evenlyDistributedRows.addAll(Numbers.getFromZero(rows));
+        Arrays.fill(rowLayouts, 0, rows, RowLayout.EVEN);
         return this;
     }
 
@@ -184,7 +307,25 @@ public class Menu implements EventWatcher {
      */
     public Menu animation(@NotNull MenuAnimation animation) {
         this.animation = animation;
-        this.animation.init(rows);
+        this.animation.compile(rows);
+        return this;
+    }
+
+    /**
+     * Renders this menu over multiple ticks when it's opened, instead of building all items at once.
+     * Slots are rendered in the order of {@link #getRenderOrder()}, until this menu has used its budget for the tick
+     * or all menus together have used the budget of {@link ProgressiveRenderer}. Ignored if this menu has an animation.
+     *
+     * @param   nanosPerTick
+     *          The amount of nanoseconds this menu may spend on rendering per tick, or 0 to render all items at once.
+     *
+     * @return the instance of this class
+     */
+    public Menu progressive(long nanosPerTick) {
+        if (nanosPerTick < 0) {
+            throw new IllegalArgumentException("Budget cannot be under 0");
+        }
+        this.renderBudget = nanosPerTick;
         return this;
     }
 
@@ -195,30 +336,137 @@ public class Menu implements EventWatcher {
      *          The slots which are to be updated
      */
     public void updateItem(int... slots) {
-        Inventory inventory = player.getOpenInventory().getTopInventory();
+        for (int slot : slots) {
+            send(slot, render(slot));
+        }
+    }
 
-        if (inventory.getSize() % 9 != 0) {
+    /**
+     * Updates all items in the inventory. Only slots of which the item has changed are sent to the player.
+     */
+    public void update() {
+        if (inventory == null) {
             return;
         }
 
-        for (int slot : slots) {
-            inventory.setItem(slot, items.get(slot).build());
+        for (int slot = items.next(0); slot != -1; slot = items.next(slot + 1)) {
+            send(slot, render(slot));
+        }
+
+        long removed = sentMask & ~items.mask(); // slots which have been emptied since the last update
+        while (removed != 0) {
+            send(Long.numberOfTrailingZeros(removed), null);
+            removed &= removed - 1;
         }
     }
 
     /**
-     * Updates all items in the inventory
+     * Updates all items in the inventory like {@link #update()}, but builds the async-safe items on the worker pool first.
+     * The results are sent to the player on the thread of the viewer, in one batch. Slots of which the item changed in the meantime
+     * are left to the next update. If the build queue is full, this menu is updated immediately instead.
+     * If this menu is closed before all items are built, nothing is sent.
+     *
+     * @return a future which completes on the thread of the viewer after the items have been sent,
+     * or fails if an item couldn't be built
      */
-    public void update() {
-        Inventory inventory = player.getOpenInventory().getTopInventory();
+    public CompletableFuture<Void> updateAsync() {
+        if (inventory == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        int[] slots = new int[items.size()];
+        MenuItem[] snapshot = new MenuItem[slots.length];
+        int length = 0;
+        for (int slot = items.next(0); slot != -1; slot = items.next(slot + 1)) {
+            slots[length] = slot;
+            snapshot[length++] = items.get(slot);
+        }
+
+        Session building = session;
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        pipeline.build(snapshot, building).whenComplete((stacks, error) -> sync(() -> {
+            if (error instanceof CancellationException || !building.isActive()) { // viewer has closed the menu
+                done.complete(null);
+                return;
+            }
+
+            if (error instanceof RejectedExecutionException) { // queue is full, build here instead
+                update();
+                done.complete(null);
+                return;
+            }
+            if (error != null) {
+                done.completeExceptionally(error);
+                return;
+            }
+
+            for (int i = 0; i < slots.length; i++) {
+                if (items.get(slots[i]) != snapshot[i]) {
+                    continue;
+                }
+                send(slots[i], stacks[i] != null ? stacks[i] : render(slots[i]));
+            }
+            long removed = sentMask & ~items.mask();
+            while (removed != 0) {
+                send(Long.numberOfTrailingZeros(removed), null);
+                removed &= removed - 1;
+            }
+            done.complete(null);
+        }));
+        return done;
+    }
+
+    /**
+     * Builds the item in a slot.
+     *
+     * @param   slot
+     *          The slot
+     *
+     * @return the built item, or null if the slot is empty.
+     */
+    public @Nullable ItemStack render(int slot) {
+        MenuItem item = items.get(slot);
+        if (item == null) {
+            return null;
+        }
+
+        if (item instanceof FillerItem fillerItem) { // shared, setting it in the inventory copies it
+            return fillerItem.getStack();
+        }
+        return item.build();
+    }
+
+    /**
+     * Sets an item in the inventory, unless the player already sees an identical item in that slot.
+     * Slots with a movable item are always sent, since the player may have changed them.
+     *
+     * @param   slot
+     *          The slot
+     *
+     * @param   stack
+     *          The item. If this is null, the slot will be emptied.
+     */
+    public void send(int slot, @Nullable ItemStack stack) {
+        if (inventory == null || slot < 0 || slot >= inventory.getSize()) {
+            return;
+        }
 
-        if (inventory.getSize() % 9 != 0) {
+        MenuItem item = items.get(slot);
+        if ((item == null || !item.isMovable()) && Objects.equals(stack, sent[slot])) {
+            skippedSlots++;
+            totalSkippedSlots.increment();
             return;
         }
 
-        for (int slot : items.keySet()) {
-            inventory.setItem(slot, items.get(slot).build());
+        sent[slot] = stack;
+        if (stack == null) {
+            sentMask &= ~(1L << slot);
+        } else {
+            sentMask |= 1L << slot;
         }
+        inventory.setItem(slot, stack);
+        sentSlots++;
+        totalSentSlots.increment();
     }
 
     /**
@@ -229,85 +477,133 @@ public class Menu implements EventWatcher {
      */
     public void open(Player player) {
         this.player = player;
-        Inventory inventory = Bukkit.createInventory(null, rows * 9,
-                titleComponent == null ? MiniMessage.miniMessage().deserialize(titleString) : titleComponent);
+        this.deactivated = false;
+        this.inventory = Bukkit.createInventory(null, rows * 9, getTitle());
+        if (session != null) { // opened again without closing
+            session.closed = true;
+        }
+        this.session = new Session(this);
+        Arrays.fill(sent, null);
+        this.sentMask = 0;
 
-        // Evenly distributed rows
-        for (int row : evenlyDistributedRows) {
-            int min = row * 9; // 0 * 9 = 0
-            int max = min + 8; // 0 + 8 = slot 8
-            Map<Integer, MenuItem> itemsInRow = new HashMap<>();
+        opening();
+        layout(items);
 
-            for (int slot : items.keySet()) { // get all items in the specified row
-                if (slot >= min && slot <= max) {
-                    itemsInRow.put(slot, items.get(slot));
-                }
-            }
+        player.openInventory(inventory);
 
-            if (itemsInRow.keySet().size() > 0) {
-                List<Integer> sortedSlots = itemsInRow.keySet().stream().sorted().toList(); // sort all slots
+        // Set items
+        if (animation != null) {
+            animation.run(this);
+        } else if (renderBudget > 0) {
+            renderer.render(this, renderBudget);
+        } else {
+            for (int slot = items.next(0); slot != -1; slot = items.next(slot + 1)) { // no animation means just setting it normally
+                send(slot, render(slot));
+            }
+        }
 
-                List<Integer> slots = getEvenlyDistributedSlots(sortedSlots.size()); // evenly distribute items
-                List<Integer> olds = new ArrayList<>();
-                List<Integer> news = new ArrayList<>();
+        dispatcher.open(player.getUniqueId(), this);
+    }
 
-                for (int i = 0; i < slots.size(); i++) {
-                    int newSlot = slots.get(i) + (9 * row); // gets the new slot
-                    int oldSlot = sortedSlots.get(i); // the previous slot
-                    MenuItem item = itemsInRow.get(oldSlot); // the item in the previous slot
+    /**
+     * Called when this menu is opened, after the viewer and session have been set, but before the items are laid out and sent.
+     * Subclasses set up the items they display here, so work they start on other threads belongs to the new session.
+     */
+    protected void opening() {
 
-                    news.add(newSlot);
-                    olds.add(oldSlot);
-                    items.put(newSlot, item); // put item in new slot
-                }
+    }
 
-                for (int oldSlot : olds) {
-                    if (news.contains(oldSlot)) {
-                        continue;
-                    }
-                    items.remove(oldSlot); // remove items from previous slot without deleting ones that are to-be moved
-                }
+    /**
+     * Returns the order in which slots are rendered when this menu is opened progressively.
+     * By default, the slots with items come first and the background last.
+     *
+     * @return the occupied slots, in order of priority
+     */
+    protected int[] getRenderOrder() {
+        int[] order = new int[items.size()];
+        int length = 0;
+        for (int slot = items.next(0); slot != -1; slot = items.next(slot + 1)) {
+            if (!(items.get(slot) instanceof FillerItem)) {
+                order[length++] = slot;
             }
         }
+        for (int slot = items.next(0); slot != -1; slot = items.next(slot + 1)) {
+            if (items.get(slot) instanceof FillerItem) {
+                order[length++] = slot;
+            }
+        }
+        return order;
+    }
 
-        // Filler
-        if (filler != null) { // fill the background with the same material
-            Item fillerItem = new Item(filler, MiniMessage.miniMessage().deserialize("<red> "));
-            for (int slot = 0; slot < rows * 9; slot++) {
-                if (items.get(slot) != null) { // ignore already-set items
-                    continue;
-                }
-
-                items.put(slot, fillerItem);
+    /**
+     * Moves the slots in a range to the front of a render order, keeping the order of the other slots.
+     *
+     * @param   order
+     *          The render order
+     *
+     * @param   from
+     *          The first slot of the range (inclusive)
+     *
+     * @param   to
+     *          The last slot of the range (exclusive)
+     *
+     * @return the new render order
+     */
+    protected static int[] prioritize(int[] order, int from, int to) {
+        int[] result = new int[order.length];
+        int length = 0;
+        for (int slot : order) {
+            if (slot >= from && slot < to) {
+                result[length++] = slot;
+            }
+        }
+        for (int slot : order) {
+            if (slot < from || slot >= to) {
+                result[length++] = slot;
             }
         }
+        return result;
+    }
 
-        player.openInventory(inventory);
+    /**
+     * Moves the items in rows with a layout and fills the background.
+     * Already arranged rows stay the same, so this can be repeated.
+     *
+     * @param   items
+     *          The items to lay out
+     */
+    void layout(SlotTable<MenuItem> items) {
+        // Row layouts
+        for (int row = 0; row < rows; row++) {
+            RowLayout layout = rowLayouts[row];
+            if (layout == null) {
+                continue;
+            }
 
-        // Set items
-        if (animation == null) {
-            for (int slot : items.keySet()) { // no animation means just setting it normally
-                inventory.setItem(slot, items.get(slot).build());
+            int min = row * 9; // 0 * 9 = 0
+            int[] moves = layout.getMoves((int) (items.mask() >>> min)); // table lookup by the occupied slots in this row
+            for (int i = 0; i < moves.length; i += 2) {
+                items.put(min + moves[i + 1], items.remove(min + moves[i])); // move item to new slot
             }
-        } else {
-            animation.run(this);
         }
 
-        openMenus.put(player.getUniqueId(), inventoryId);
-        register();
+        // Filler
+        if (filler != null) { // fill the background with the same material
+            items.fill(FillerItem.of(filler), rows * 9); // ignores already-set items
+        }
     }
 
-    @EventHandler
+    /**
+     * Handles a click in this menu. Called by the {@link MenuDispatcher} if the player who clicked is viewing this menu.
+     *
+     * @param   event
+     *          The event
+     */
     public void click(@NotNull InventoryClickEvent event) {
         if (deactivated || event.getClickedInventory() != event.getView().getTopInventory()) {
             return;
         }
 
-        UUID id = openMenus.get(event.getWhoClicked().getUniqueId());
-        if (id != inventoryId) {
-            return;
-        }
-
         MenuItem clickedItem = items.get(event.getSlot());
         if (clickedItem == null) {
             return;
@@ -317,25 +613,126 @@ public class Menu implements EventWatcher {
         clickedItem.handleClick(this, event, event.getClick());
     }
 
-    @EventHandler
+    /**
+     * Handles the closing of this menu. Called by the {@link MenuDispatcher} if the player who closed is viewing this menu.
+     *
+     * @param   event
+     *          The event
+     */
     public void close(InventoryCloseEvent event) {
+        release();
+    }
+
+    /**
+     * Binds a task to this menu. The task will be cancelled as soon as this menu is closed.
+     *
+     * @param   task
+     *          The task
+     */
+    public void task(@NotNull BukkitTask task) {
         if (deactivated) {
+            task.cancel();
             return;
         }
+        tasks.add(task);
+    }
 
-        UUID viewerId = event.getPlayer().getUniqueId();
-        UUID id = openMenus.get(viewerId);
-        if (id != inventoryId) {
-            return;
+    /**
+     * Runs a task on the thread which owns the viewer of this menu on the next tick. This is the main thread,
+     * or on regionized servers, the thread of the region the viewer is in. Use this to apply results that were
+     * computed on another thread.
+     *
+     * @param   runnable
+     *          The task
+     */
+    public void sync(@NotNull Runnable runnable) {
+        Task.create(PLUGIN)
+                .entity(player)
+                .execute(runnable)
+                .run();
+    }
+
+    /**
+     * Schedules an action for the item in a slot. The timer will be cancelled as soon as this menu is closed.
+     * Each slot has at most one timer: if the item already has a timer for this slot, that timer is kept,
+     * so building an item again doesn't schedule it again. The timer of another item in this slot is cancelled.
+     * On regionized servers, the action is run on the thread of the viewer, one tick after the timer fires.
+     *
+     * @param   slot
+     *          The slot
+     *
+     * @param   owner
+     *          The item which schedules the action
+     *
+     * @param   delay
+     *          The amount of ticks until the action is run
+     *
+     * @param   period
+     *          The amount of ticks between runs, or 0 to only run the action once.
+     *
+     * @param   action
+     *          The action
+     *
+     * @return the timer of this slot
+     */
+    public TimingWheel.Timer schedule(int slot, @NotNull MenuItem owner, int delay, int period, @NotNull Runnable action) {
+        if (timers == null) {
+            timers = new TimingWheel.Timer[SlotTable.SIZE];
+            timerOwners = new MenuItem[SlotTable.SIZE];
         }
 
-        if (animation != null) {
-            animation.stop();
+        TimingWheel.Timer existing = timers[slot];
+        if (existing != null && existing.isScheduled()) {
+            if (timerOwners[slot] == owner) {
+                return existing;
+            }
+            existing.cancel();
+        }
+
+        Runnable run = Task.isRegionized() ? () -> sync(action) : action;
+        TimingWheel.Timer timer = dispatcher.getTimers().schedule(delay, period, run);
+        if (deactivated) {
+            timer.cancel();
+            return timer;
         }
+        timers[slot] = timer;
+        timerOwners[slot] = owner;
+        return timer;
+    }
 
+    /**
+     * Stops the animation, cancels all bound tasks and timers and drops the references to the player and inventory.
+     */
+    void release() {
+        if (deactivated) {
+            return;
+        }
         deactivated = true;
-        disabledMenus.add(this);
-        openMenus.remove(viewerId);
+
+        playback = null; // dropped by the animation driver
+        renderJob = null;
+        for (BukkitTask task : tasks) {
+            task.cancel();
+        }
+        tasks.clear();
+        if (timers != null) {
+            for (TimingWheel.Timer timer : timers) {
+                if (timer != null) {
+                    timer.cancel();
+                }
+            }
+            Arrays.fill(timers, null);
+            Arrays.fill(timerOwners, null);
+        }
+
+        player = null;
+        inventory = null;
+        if (session != null) {
+            session.closed = true;
+            session = null;
+        }
+        Arrays.fill(sent, null);
+        sentMask = 0;
     }
 
     /**
@@ -353,9 +750,19 @@ public class Menu implements EventWatcher {
     /**
      * Gets the slots and their respective items
      *
-     * @return a Map with the slots and items.
+     * @return a Map view with the slots and items, in slot order. Changes to this map are reflected in the menu.
      */
     public Map<Integer, MenuItem> getItems() {
+        return items.asMap();
+    }
+
+    /**
+     * Gets the table with the slots and their respective items.
+     * Unlike {@link #getItems()}, this doesn't box slots.
+     *
+     * @return the slot table of this menu
+     */
+    public SlotTable<MenuItem> getSlotTable() {
         return items;
     }
 
@@ -368,8 +775,54 @@ public class Menu implements EventWatcher {
         return player;
     }
 
+    /**
+     * Returns the session of this menu, which identifies the time between opening and closing it.
+     * Work that outlives a tick can keep the session and check {@link Session#isActive()} before changing this menu.
+     *
+     * @return the session, or null if this menu isn't open.
+     */
+    public @Nullable Session getSession() {
+        return session;
+    }
+
+    /**
+     * Returns the amount of slots that have been sent to the player of this menu.
+     *
+     * @return the amount of sent slots
+     */
+    public long getSentSlots() {
+        return sentSlots;
+    }
+
+    /**
+     * Returns the amount of slots that weren't sent to the player of this menu, because they hadn't changed.
+     *
+     * @return the amount of skipped slots
+     */
+    public long getSkippedSlots() {
+        return skippedSlots;
+    }
+
+    /**
+     * Returns the amount of slots that have been sent by all menus.
+     *
+     * @return the amount of sent slots
+     */
+    public static long getTotalSentSlots() {
+        return totalSentSlots.sum();
+    }
+
+    /**
+     * Returns the amount of slots that weren't sent by all menus, because they hadn't changed.
+     *
+     * @return the amount of skipped slots
+     */
+    public static long getTotalSkippedSlots() {
+        return totalSkippedSlots.sum();
+    }
+
     public Component getTitle() {
-        return titleComponent == null ? MiniMessage.miniMessage().deserialize(titleString) : titleComponent;
+        return titleComponent == null ? ComponentCache.parse(titleString) : titleComponent;
     }
 
     @Nullable
@@ -382,18 +835,45 @@ public class Menu implements EventWatcher {
         return titleString;
     }
 
-    private List<Integer> getEvenlyDistributedSlots(int amountInRow) {
-        return switch (amountInRow) {
-            case 0 -> Collections.emptyList();
-            case 1 -> Collections.singletonList(4);
-            case 2 -> Arrays.asList(3, 5);
-            case 3 -> Arrays.asList(3, 4, 5);
-            case 4 -> Arrays.asList(2, 3, 5, 6);
-            case 5 -> Arrays.asList(2, 3, 4, 5, 6);
-            case 6 -> Arrays.asList(1, 2, 3, 5, 6, 7);
-            case 7 -> Arrays.asList(1, 2, 3, 4, 5, 6, 7);
-            case 8 -> Arrays.asList(0, 1, 2, 3, 5, 6, 7, 8);
-            default -> Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8);
-        };
+    /**
+     * A single opening of a menu. Every time a menu is opened, it gets a new session.
+     */
+    public static final class Session {
+
+        private final Menu menu;
+        private volatile boolean closed;
+
+        private Session(Menu menu) {
+            this.menu = menu;
+        }
+
+        /**
+         * Returns whether the menu of this session has been closed. Unlike {@link #isActive()}, this may be called from any thread.
+         *
+         * @return true if this session has ended
+         */
+        public boolean isClosed() {
+            return closed;
+        }
+
+        /**
+         * Returns whether the menu is still open in this session, and the player is still looking at it.
+         * Only compares references, so a different menu with the same title is never mistaken for this one.
+         *
+         * @return true if this session is active
+         */
+        public boolean isActive() {
+            Player player = menu.player;
+            return menu.session == this && player != null && player.getOpenInventory().getTopInventory() == menu.inventory;
+        }
+
+        /**
+         * Returns the menu of this session.
+         *
+         * @return the menu
+         */
+        public Menu getMenu() {
+            return menu;
+        }
     }
 }
\ No newline at end of file
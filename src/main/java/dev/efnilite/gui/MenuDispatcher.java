@@ -0,0 +1,283 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.util.Task;
+import dev.efnilite.gui.util.TimingWheel;
+import dev.efnilite.gui.util.event.EventWatcher;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The single listener which routes inventory events to the menu a player is viewing.
+ * This is registered once in {@link Menu#init(org.bukkit.plugin.Plugin)}, so the cost of a click
+ * does not depend on the amount of open menus. On regionized servers, events arrive on the threads of the regions
+ * of their players, and the audit checks each session on the thread of its viewer.
+ *
+ * @author Efnilite
+ */
+public final class MenuDispatcher implements EventWatcher {
+
+    /**
+     * The maximum amount of sessions that are checked for staleness every tick.
+     */
+    public static final int AUDITS_PER_TICK = 32;
+
+    /**
+     * The menu each player is currently viewing.
+     */
+    private final Map<UUID, Menu> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Open menus which still have to be checked, in order of opening.
+     */
+    private final ArrayDeque<Menu> audits = new ArrayDeque<>();
+
+    /**
+     * The timers of time-based items in open menus.
+     */
+    private final TimingWheel timers = new TimingWheel();
+
+    private final LongAdder released = new LongAdder();
+    private final LongAdder staleReleased = new LongAdder();
+    private Plugin plugin;
+    private BukkitTask auditTask;
+
+    MenuDispatcher() {
+
+    }
+
+    /**
+     * Registers this dispatcher, and starts the audit of open sessions and the timers of items.
+     *
+     * @param   plugin
+     *          The plugin
+     */
+    void start(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+        register();
+
+        auditTask = Task.create(plugin)
+                .repeat(1)
+                .execute(() -> {
+                    audit();
+                    timers.tick();
+                })
+                .run();
+    }
+
+    /**
+     * Unregisters this dispatcher and releases every open menu.
+     */
+    void stop() {
+        unregisterAll();
+
+        if (auditTask != null) {
+            auditTask.cancel();
+        }
+        for (Menu menu : sessions.values()) {
+            release(menu, null);
+        }
+        sessions.clear();
+        synchronized (audits) {
+            audits.clear();
+        }
+    }
+
+    /**
+     * Marks a menu as the one a player is viewing.
+     *
+     * @param   viewer
+     *          The UUID of the player
+     *
+     * @param   menu
+     *          The menu
+     */
+    void open(@NotNull UUID viewer, @NotNull Menu menu) {
+        Menu previous = sessions.put(viewer, menu);
+        if (previous != null && previous != menu) { // replaced without a close event
+            release(previous, null);
+        }
+        queue(menu);
+    }
+
+    private void queue(@NotNull Menu menu) {
+        synchronized (audits) {
+            if (!menu.audited) {
+                menu.audited = true;
+                audits.add(menu);
+            }
+        }
+    }
+
+    /**
+     * Checks at most {@link #AUDITS_PER_TICK} sessions and releases the ones of which the viewer
+     * has left or is no longer looking at the menu, in case a close event never arrived.
+     */
+    private void audit() {
+        int amount;
+        synchronized (audits) {
+            amount = Math.min(AUDITS_PER_TICK, audits.size());
+        }
+
+        for (int i = 0; i < amount; i++) {
+            Menu menu;
+            synchronized (audits) {
+                menu = audits.poll();
+                menu.audited = false;
+            }
+
+            Player player = menu.player;
+            if (menu.deactivated || player == null) { // already released
+                continue;
+            }
+
+            if (Task.isRegionized()) { // the viewer may only be read on its own region
+                Task.create(plugin)
+                        .entity(player)
+                        .execute(() -> check(menu, player))
+                        .run();
+            } else {
+                check(menu, player);
+            }
+        }
+    }
+
+    private void check(@NotNull Menu menu, @NotNull Player player) {
+        UUID viewer = player.getUniqueId();
+        if (menu.deactivated || sessions.get(viewer) != menu) {
+            return;
+        }
+
+        if (player.isOnline() && player.getOpenInventory().getTopInventory() == menu.inventory) {
+            queue(menu);
+            return;
+        }
+
+        if (sessions.remove(viewer, menu)) {
+            release(menu, null);
+            staleReleased.increment();
+        }
+    }
+
+    /**
+     * Releases a menu which has been removed from the sessions, and counts it.
+     *
+     * @param   menu
+     *          The menu
+     *
+     * @param   event
+     *          The close event, which is passed to {@link Menu#close(InventoryCloseEvent)}, or null if the menu wasn't closed by the player.
+     */
+    private void release(@NotNull Menu menu, @Nullable InventoryCloseEvent event) {
+        if (event != null) {
+            menu.close(event);
+        }
+        menu.release(); // in case close has been overridden without releasing
+        released.increment();
+    }
+
+    /**
+     * Returns the menu a player is viewing.
+     *
+     * @param   viewer
+     *          The UUID of the player
+     *
+     * @return the menu, or null if this player isn't viewing a menu.
+     */
+    public @Nullable Menu getMenu(@NotNull UUID viewer) {
+        return sessions.get(viewer);
+    }
+
+    /**
+     * Returns the timing wheel which runs the timers of time-based items, such as {@link dev.efnilite.gui.item.TimedItem}.
+     * Use {@link Menu#schedule(int, dev.efnilite.gui.item.MenuItem, int, int, Runnable)} to schedule timers for a menu.
+     *
+     * @return the timing wheel
+     */
+    public TimingWheel getTimers() {
+        return timers;
+    }
+
+    /**
+     * Returns the amount of menus that are currently being viewed.
+     *
+     * @return the amount of open menus
+     */
+    public int getOpenMenus() {
+        return sessions.size();
+    }
+
+    /**
+     * Returns the amount of sessions waiting to be audited.
+     *
+     * @return the amount of queued audits
+     */
+    public int getPendingAudits() {
+        synchronized (audits) {
+            return audits.size();
+        }
+    }
+
+    /**
+     * Returns the total amount of menus that have been released since {@link Menu#init(Plugin)}.
+     *
+     * @return the amount of released menus
+     */
+    public long getReleasedMenus() {
+        return released.sum();
+    }
+
+    /**
+     * Returns the amount of released menus that were found by the audit instead of a close or quit event.
+     * On a healthy server this should stay at or near 0.
+     *
+     * @return the amount of stale menus that were released
+     */
+    public long getStaleReleasedMenus() {
+        return staleReleased.sum();
+    }
+
+    @EventHandler
+    public void click(@NotNull InventoryClickEvent event) {
+        Menu menu = sessions.get(event.getWhoClicked().getUniqueId());
+        if (menu == null || event.getView().getTopInventory() != menu.inventory) {
+            return;
+        }
+
+        menu.click(event);
+    }
+
+    @EventHandler
+    public void close(@NotNull InventoryCloseEvent event) {
+        UUID viewer = event.getPlayer().getUniqueId();
+        Menu menu = sessions.get(viewer);
+        if (menu == null || event.getView().getTopInventory() != menu.inventory || !sessions.remove(viewer, menu)) {
+            return;
+        }
+
+        release(menu, event);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void quit(@NotNull PlayerQuitEvent event) {
+        Menu menu = sessions.remove(event.getPlayer().getUniqueId());
+        if (menu == null) {
+            return;
+        }
+
+        release(menu, null);
+    }
+}
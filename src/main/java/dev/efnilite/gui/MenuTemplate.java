@@ -0,0 +1,120 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.Item;
+import dev.efnilite.gui.item.MenuItem;
+import dev.efnilite.gui.util.collections.SlotTable;
+import net.kyori.adventure.text.Component;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A compiled version of a {@link Menu} which can be opened for many players.
+ * The title, layout and background are resolved once, and every opened menu shares them,
+ * until a slot is changed for that specific player. The items themselves are shared too, not copied:
+ * changing an item of the template changes it in every menu created from it.
+ * Async-safe items such as {@link Item}s are built once when compiling, and keep their result until they change.
+ *
+ * <pre>
+ * MenuTemplate selector = MenuTemplate.compile(new Menu(3, "Servers")
+ *     .distributeRowsEvenly()
+ *     .item(10, new Item(Material.GRASS_BLOCK, "Survival")));
+ *
+ * selector.create()
+ *     .item(22, new Item(Material.PLAYER_HEAD, player.getName())) // only this slot is copied
+ *     .open(player);
+ * </pre>
+ *
+ * @author Efnilite
+ */
+public final class MenuTemplate {
+
+    private final int rows;
+    private final Component title;
+    final SlotTable<MenuItem> items;
+
+    private MenuTemplate(Menu menu) {
+        this.rows = menu.rows;
+        this.title = menu.getTitle();
+        this.items = menu.items.copy();
+
+        menu.layout(items);
+
+        for (int slot = items.next(0); slot != -1; slot = items.next(slot + 1)) {
+            MenuItem item = items.get(slot);
+            if (item.isAsyncSafe()) { // caches the result in the item, other items may have side effects when building
+                item.build();
+            }
+        }
+    }
+
+    /**
+     * Compiles a menu to a template. Changes to the slots of the menu afterwards do not affect the template,
+     * but changes to its items do.
+     * The animation of the menu is not included, since an animation can only run for one menu at a time.
+     *
+     * @param   menu
+     *          The menu
+     *
+     * @return the template
+     */
+    public static MenuTemplate compile(@NotNull Menu menu) {
+        if (menu instanceof PagedMenu) {
+            throw new IllegalArgumentException("Paged menus can't be compiled to a template");
+        }
+        return new MenuTemplate(menu);
+    }
+
+    /**
+     * Creates a new menu backed by this template. Slots can be personalized with {@link Menu#item(int, MenuItem)} before opening.
+     *
+     * @return a new menu
+     */
+    public Menu create() {
+        return new Menu(this);
+    }
+
+    /**
+     * Creates a new menu backed by this template and opens it.
+     *
+     * @param   player
+     *          The player to open it to
+     *
+     * @return the opened menu
+     */
+    public Menu open(@NotNull Player player) {
+        Menu menu = create();
+        menu.open(player);
+        return menu;
+    }
+
+    /**
+     * Returns the item in a slot.
+     *
+     * @param   slot
+     *          The slot
+     *
+     * @return the item, or null if this slot is empty.
+     */
+    public @Nullable MenuItem getItem(int slot) {
+        return items.get(slot);
+    }
+
+    /**
+     * Returns the amount of rows
+     *
+     * @return the amount of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the title
+     *
+     * @return the title
+     */
+    public Component getTitle() {
+        return title;
+    }
+}
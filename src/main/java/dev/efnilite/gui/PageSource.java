@@ -0,0 +1,79 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.MenuItem;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Provides the items of a {@link PagedMenu} on demand, so only the items on the page that is being viewed
+ * have to exist. Useful for large catalogues or items that are stored elsewhere.
+ *
+ * @author Efnilite
+ */
+public interface PageSource {
+
+    /**
+     * Returns the total amount of items.
+     *
+     * @return the amount of items
+     */
+    int size();
+
+    /**
+     * Returns a range of items.
+     *
+     * @param   offset
+     *          The index of the first item
+     *
+     * @param   limit
+     *          The maximum amount of items
+     *
+     * @return the items from offset up to offset + limit, or less if there are no more.
+     */
+    @NotNull
+    List<MenuItem> fetch(int offset, int limit);
+
+    /**
+     * Returns a range of items, possibly at a later time. Until the returned future is completed,
+     * the menu will display its placeholder. The result is always applied on the main thread.
+     * By default, this calls {@link #fetch(int, int)} directly.
+     *
+     * @param   offset
+     *          The index of the first item
+     *
+     * @param   limit
+     *          The maximum amount of items
+     *
+     * @return a future with the items from offset up to offset + limit
+     */
+    @NotNull
+    default CompletableFuture<List<MenuItem>> fetchAsync(int offset, int limit) {
+        return CompletableFuture.completedFuture(fetch(offset, limit));
+    }
+
+    /**
+     * Returns a source backed by a list. Pages are views of the list, so changes to the list are reflected
+     * and fetching a page never copies it.
+     *
+     * @param   items
+     *          The list
+     *
+     * @return a source backed by the list
+     */
+    static PageSource of(@NotNull List<MenuItem> items) {
+        return new PageSource() {
+            @Override
+            public int size() {
+                return items.size();
+            }
+
+            @Override
+            public @NotNull List<MenuItem> fetch(int offset, int limit) {
+                int size = items.size();
+                return items.subList(Math.min(offset, size), Math.min(offset + limit, size));
+            }
+        };
+    }
+}
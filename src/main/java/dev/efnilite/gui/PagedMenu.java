@@ -1,20 +1,23 @@
 package dev.efnilite.gui;
 
-import dev.efnilite.gui.item.Item;
+import dev.efnilite.gui.item.FillerItem;
 import dev.efnilite.gui.item.MenuItem;
 import dev.efnilite.gui.util.Numbers;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+import java.util.logging.Level;
 
 /**
  * A menu which, depending on the amount of items on display, supports a page view.
- * Add items with {@link #addToDisplay(List)}.
+ * Add items with {@link #addToDisplay(List)}, or provide them on demand with {@link #source(PageSource)}.
  *
  * @author Efnilite
  */
@@ -26,9 +29,36 @@ public class PagedMenu extends Menu {
     private MenuItem nextPageItem;
     private int prevPageSlot;
     private MenuItem prevPageItem;
-    private final List<Integer> displaySlots = new ArrayList<>();
-    private final List<MenuItem> totalToDisplay = new ArrayList<>();
-    private final Map<Integer, List<MenuItem>> assigned = new HashMap<>();
+    private MenuItem placeholder;
+    private PageSource source;
+    private boolean buildAsync;
+    private int[] displaySlots = new int[0];
+    private final DisplayList totalToDisplay = new DisplayList();
+    private final DisplayIndex index = new DisplayIndex(totalToDisplay);
+
+    // Rendered pages, least recently shown first
+    private int cacheSize = 16;
+    private int generation;
+    private long cacheHits;
+    private long cacheMisses;
+    private RenderedPage shown;
+    private final LinkedHashMap<Integer, RenderedPage> rendered = new LinkedHashMap<>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, RenderedPage> eldest) {
+            if (size() <= Math.max(cacheSize, prefetchDepth * 2 + 1)) { // always keep the prefetched pages
+                return false;
+            }
+            dropped(eldest.getValue());
+            return true;
+        }
+    };
+
+    // Prefetching
+    private int prefetchDepth = 0;
+    private long prefetchHits;
+    private long prefetchMisses;
+    private long prefetchWasted;
+    private final Set<Integer> prefetching = new HashSet<>();
 
     /**
      * Constructor for a paged menu.
@@ -66,16 +96,118 @@ public class PagedMenu extends Menu {
             begin = Numbers.min(begin, min);
             end = Numbers.max(end, max);
         }
-        displaySlots.addAll(Numbers.getFromTo(begin, end));
+        displaySlots = new int[end - begin + 1];
+        for (int i = 0; i < displaySlots.length; i++) {
+            displaySlots[i] = begin + i;
+        }
+        return this;
+    }
+
+    /**
+     * Sets the source which provides the items on demand. Only the items of the page that is being viewed are fetched.
+     * If a source is set, the items added with {@link #addToDisplay(List)} are ignored.
+     *
+     * @param   source
+     *          The source
+     *
+     * @return the instance of this menu
+     */
+    public PagedMenu source(@Nullable PageSource source) {
+        this.source = source;
+        return this;
+    }
+
+    /**
+     * Sets the item which is displayed in the display slots while the source is still fetching the page.
+     * By default, the background filler.
+     *
+     * @param   placeholder
+     *          The placeholder
+     *
+     * @return the instance of this menu
+     */
+    public PagedMenu placeholder(@Nullable MenuItem placeholder) {
+        this.placeholder = placeholder;
+        return this;
+    }
+
+    /**
+     * Sets the amount of pages before and after the current page of which the items are built ahead of time,
+     * on the worker pool. Turning to a prefetched page then only has to copy the results. Only async-safe items are built
+     * this way, see {@link MenuItem#isAsyncSafe()}.
+     * Items of different pages may be built at the same time, so async-safe items must not share state that building
+     * changes. {@link dev.efnilite.gui.item.Item}s build on a copy of their meta, so clones of an item can be prefetched,
+     * but their properties and meta must not be changed while they're being built.
+     * By default 0, which disables prefetching.
+     *
+     * @param   depth
+     *          The amount of pages in each direction
+     *
+     * @return the instance of this menu
+     */
+    public PagedMenu prefetch(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Depth cannot be under 0");
+        }
+        this.prefetchDepth = depth;
+        return this;
+    }
+
+    /**
+     * Builds the items of pages which haven't been rendered yet on the worker pool, instead of on the main thread.
+     * The placeholder is displayed until the page has been built. Only async-safe items are built this way,
+     * see {@link MenuItem#isAsyncSafe()}. If the queue of the {@link BuildPipeline} is full, the page is built
+     * on the main thread instead. By default false.
+     *
+     * @param   buildAsync
+     *          True to build pages on the worker pool
+     *
+     * @return the instance of this menu
+     */
+    public PagedMenu buildAsync(boolean buildAsync) {
+        this.buildAsync = buildAsync;
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of rendered pages which are kept, so going back to a recently shown page
+     * doesn't fetch its items again, and only builds the items of which the version has changed, see {@link MenuItem#getVersion()}.
+     * The least recently shown page is dropped first. Pages are dropped when the display items are moved. By default 16.
+     *
+     * @param   size
+     *          The maximum amount of pages. Pages which are being prefetched are always kept.
+     *
+     * @return the instance of this menu
+     */
+    public PagedMenu cachePages(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size cannot be under 0");
+        }
+        this.cacheSize = size;
         return this;
     }
 
     @Override
-    public void open(Player player) {
-        assignPages();
+    protected void opening() {
+        if (source != null) { // changes to the items of a source can't be tracked
+            invalidate();
+        }
+        prefetching.clear();
 
+        this.current = 0;
+        this.total = getPageCount();
+        this.shown = null;
         page(0);
-        super.open(player);
+    }
+
+    /**
+     * Opens a page to the player. Does nothing if the page doesn't exist.
+     *
+     * @param   page
+     *          The page, starting from 0.
+     */
+    public void jumpTo(int page) {
+        page(page - current);
     }
 
     /**
@@ -86,15 +218,11 @@ public class PagedMenu extends Menu {
      */
     public void page(int delta) {
         int newPage = current + delta;
-        if (newPage < 0 || newPage > total) {
-            return;
-        }
-        if (!assigned.containsKey(newPage) || assigned.get(newPage) == null) {
+        if (newPage < 0 || newPage >= total) {
             return;
         }
 
-        List<MenuItem> values = new ArrayList<>(assigned.get(newPage));
-        Item missingFiller = new Item(filler, MiniMessage.miniMessage().deserialize("<red> "));
+        MenuItem missingFiller = filler == null ? null : FillerItem.of(filler);
 
         items.remove(prevPageSlot);
         items.remove(nextPageSlot);
@@ -110,43 +238,288 @@ public class PagedMenu extends Menu {
             items.put(nextPageSlot, missingFiller);
         }
 
-        for (int slot : displaySlots) {
-            items.remove(slot);
+        invalidateChanged();
+
+        shown = rendered.get(newPage);
+        if (shown != null) {
+            cacheHits++;
+            if (shown.prefetched) {
+                prefetchHits++;
+            } else if (prefetchDepth > 0) {
+                prefetchMisses++;
+            }
+            shown.used = true;
+
+            display(Arrays.asList(shown.items));
+        } else {
+            cacheMisses++;
+            if (prefetchDepth > 0) {
+                prefetchMisses++;
+            }
+
+            CompletableFuture<List<MenuItem>> future = getSource().fetchAsync(newPage * displaySlots.length, displaySlots.length);
 
-            if (values.size() > 0) {
-                items.put(slot, values.get(0));
-                values.remove(0);
-            } else if (filler != null) {
-                items.put(slot, missingFiller);
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                load(newPage, future.join());
+            } else {
+                display(null);
+                int fetchedGeneration = generation;
+                future.whenComplete((values, error) -> sync(() -> {
+                    if (error != null) {
+                        PLUGIN.getLogger().log(Level.SEVERE, "Error while fetching page " + newPage, error);
+                    }
+                    if (deactivated || current != newPage) { // player has moved on
+                        return;
+                    }
+
+                    if (error != null) { // display nothing, the page is fetched again when it's shown again
+                        display(Collections.emptyList());
+                    } else if (fetchedGeneration != generation) { // items changed while fetching, fetch again
+                        page(0);
+                    } else {
+                        load(newPage, values);
+                    }
+                    update();
+                }));
             }
         }
+
         if (delta != 0) {
             update();
         }
         current = newPage;
+
+        prefetchAround();
     }
 
-    private void assignPages() {
-        List<MenuItem> total = new ArrayList<>(totalToDisplay);
-        List<MenuItem> thisPage = new ArrayList<>();
+    /**
+     * Displays a fetched page. When building asynchronously, the placeholder is displayed until the page has been built.
+     */
+    private void load(int page, List<MenuItem> values) {
+        MenuItem[] array = values.toArray(new MenuItem[0]);
+        if (!buildAsync) {
+            show(page, new RenderedPage(array));
+            return;
+        }
+
+        display(null);
+        long[] versions = RenderedItems.getVersions(array);
+        int builtGeneration = generation;
+        getPipeline().build(array, getSession())
+                .whenComplete((stacks, error) -> sync(() -> {
+                    if (error instanceof CancellationException) { // menu has been closed
+                        return;
+                    }
+                    boolean rejected = error instanceof RejectedExecutionException;
+                    if (error != null && !rejected) {
+                        PLUGIN.getLogger().log(Level.SEVERE, "Error while building page " + page, error);
+                    }
+                    if (deactivated || current != page) { // player has moved on
+                        return;
+                    }
+
+                    if (builtGeneration != generation) { // items changed while building, fetch again
+                        page(0);
+                    } else if (error == null || rejected) { // if the build queue was full, the items are built here when updating
+                        RenderedPage result = new RenderedPage(array);
+                        if (stacks != null) {
+                            result.putAll(stacks, versions);
+                        }
+                        show(page, result);
+                    } else { // display nothing, the page is built again when it's shown again
+                        display(Collections.emptyList());
+                    }
+                    update();
+                }));
+    }
+
+    /**
+     * Keeps a page and displays it. Items which haven't been built yet are built on the main thread when the menu is updated.
+     */
+    private void show(int page, RenderedPage result) {
+        shown = result;
+        shown.used = true;
+        rendered.put(page, shown);
+
+        display(Arrays.asList(result.items));
+    }
 
-        int page = 0;
-        while (total.size() > 0) {
-            for (int slot = 0; slot < displaySlots.size(); slot++) {
-                if (total.size() <= 0) {
+    /**
+     * {@inheritDoc}
+     * Items in the display slots are only built again if their version has changed since the page was last shown.
+     */
+    @Override
+    public @Nullable ItemStack render(int slot) {
+        int index = displaySlots.length == 0 ? -1 : slot - displaySlots[0];
+        if (shown == null || index < 0 || index >= displaySlots.length) {
+            return super.render(slot);
+        }
+
+        MenuItem item = items.get(slot);
+        ItemStack stack = shown.get(index, item);
+        if (stack != null) {
+            return stack;
+        }
+
+        long version = item == null ? -1 : item.getVersion();
+        stack = super.render(slot);
+        shown.put(index, item, stack, version);
+        return stack;
+    }
+
+    @Override
+    protected int[] getRenderOrder() {
+        int[] order = super.getRenderOrder();
+        return displaySlots.length == 0 ? order : prioritize(order, displaySlots[0], displaySlots[0] + displaySlots.length);
+    }
+
+    /**
+     * Requests the pages around the current page which haven't been rendered yet.
+     */
+    private void prefetchAround() {
+        for (int distance = 1; distance <= prefetchDepth; distance++) {
+            request(current + distance);
+            request(current - distance);
+        }
+    }
+
+    private void request(int page) {
+        if (page < 0 || page >= total || rendered.containsKey(page) || !prefetching.add(page)) {
+            return;
+        }
+
+        int requestedGeneration = generation;
+        Menu.Session requestedSession = getSession();
+        getSource().fetchAsync(page * displaySlots.length, displaySlots.length)
+                .thenApply(values -> values.toArray(new MenuItem[0])) // copy the page on the thread that fetched it
+                .thenCompose(values -> {
+                    long[] versions = RenderedItems.getVersions(values);
+                    return getPipeline().build(values, requestedSession).thenApply(stacks -> {
+                        RenderedPage result = new RenderedPage(values);
+                        result.putAll(stacks, versions);
+                        return result;
+                    });
+                })
+                .whenComplete((result, error) -> sync(() -> {
+                    prefetching.remove(page);
+                    if (error != null) { // build queue is full or the menu has been closed
+                        return;
+                    }
+
+                    if (deactivated || requestedGeneration != generation || Math.abs(page - current) > prefetchDepth) { // player has moved on
+                        prefetchWasted++;
+                        return;
+                    }
+                    result.prefetched = true;
+                    rendered.put(page, result);
+                }));
+    }
+
+    /**
+     * Drops the rendered pages which contain an item, for example because the item has been changed.
+     * If the current page contains the item, it's updated.
+     *
+     * @param   item
+     *          The item
+     */
+    public void invalidate(@NotNull MenuItem item) {
+        boolean affected = false;
+        Iterator<RenderedPage> iterator = rendered.values().iterator();
+        while (iterator.hasNext()) {
+            RenderedPage page = iterator.next();
+            for (MenuItem contained : page.items) {
+                if (contained == item) {
+                    affected |= page == shown;
+                    dropped(page);
+                    iterator.remove();
                     break;
                 }
-                thisPage.add(total.get(0));
-                total.remove(0);
             }
+        }
 
-            this.assigned.put(page, new ArrayList<>(thisPage));
-            thisPage.clear();
-            page++;
+        if (affected) {
+            shown = null;
+            update();
         }
+    }
 
-        this.current = 0;
-        this.total = assigned.keySet().size();
+    /**
+     * Drops all rendered pages. Required when the items of a {@link PageSource} have changed,
+     * since only changes to the items added with {@link #addToDisplay(List)} are tracked.
+     */
+    public void invalidate() {
+        rendered.values().forEach(this::dropped);
+        rendered.clear();
+        generation++;
+    }
+
+    /**
+     * Drops the rendered pages of which the items have been moved or changed since the last check.
+     *
+     * @return the first page which has changed, or {@link Integer#MAX_VALUE} if none have.
+     */
+    private int invalidateChanged() {
+        if (source != null || displaySlots.length == 0) {
+            return Integer.MAX_VALUE;
+        }
+
+        int from = index.pollChanged();
+        if (from == Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+
+        int first = from / displaySlots.length;
+        Iterator<Map.Entry<Integer, RenderedPage>> iterator = rendered.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, RenderedPage> entry = iterator.next();
+            if (entry.getKey() >= first) {
+                dropped(entry.getValue());
+                iterator.remove();
+            }
+        }
+        generation++;
+        return first;
+    }
+
+    private void dropped(RenderedPage page) {
+        if (page.prefetched && !page.used) {
+            prefetchWasted++;
+        }
+    }
+
+    /**
+     * Sets the items in the display slots.
+     *
+     * @param   values
+     *          The items, or null to display the placeholder.
+     */
+    private void display(@Nullable List<MenuItem> values) {
+        MenuItem empty = filler == null ? null : FillerItem.of(filler);
+        MenuItem pending = placeholder == null ? empty : placeholder;
+
+        for (int i = 0; i < displaySlots.length; i++) {
+            if (values == null) {
+                items.put(displaySlots[i], pending);
+            } else {
+                items.put(displaySlots[i], i < values.size() ? values.get(i) : empty);
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of pages, based on the amount of items and display slots.
+     *
+     * @return the amount of pages
+     */
+    public int getPageCount() {
+        if (displaySlots.length == 0) {
+            return 0;
+        }
+        return (getSource().size() + displaySlots.length - 1) / displaySlots.length;
+    }
+
+    private PageSource getSource() {
+        return source == null ? index : source;
     }
 
     /**
@@ -158,7 +531,7 @@ public class PagedMenu extends Menu {
      * @return the instance of this class
      */
     public PagedMenu addToDisplay(List<MenuItem> items) {
-        totalToDisplay.addAll(items);
+        index.append(items);
         return this;
     }
 
@@ -169,8 +542,187 @@ public class PagedMenu extends Menu {
      *          The items to display
      */
     public void setToDisplay(List<MenuItem> items) {
-        totalToDisplay.clear();
-        totalToDisplay.addAll(items);
+        index.set(items);
+    }
+
+    /**
+     * Inserts a display item. If the menu is open, the player only sees the change if it affects the current page.
+     *
+     * @param   index
+     *          The index in the items added with {@link #addToDisplay(List)}, at which the item is inserted.
+     *
+     * @param   item
+     *          The item
+     */
+    public void insert(int index, @NotNull MenuItem item) {
+        if (index < 0 || index > totalToDisplay.size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for " + totalToDisplay.size() + " items");
+        }
+        this.index.insert(index, item);
+        changed();
+    }
+
+    /**
+     * Removes a display item. If the menu is open, the player only sees the change if it affects the current page.
+     *
+     * @param   index
+     *          The index in the items added with {@link #addToDisplay(List)}.
+     *
+     * @return the removed item
+     */
+    public MenuItem remove(int index) {
+        Objects.checkIndex(index, totalToDisplay.size());
+        MenuItem removed = this.index.remove(index);
+        changed();
+        return removed;
+    }
+
+    /**
+     * Replaces a display item. If the menu is open, the player only sees the change if it affects the current page.
+     *
+     * @param   index
+     *          The index in the items added with {@link #addToDisplay(List)}.
+     *
+     * @param   item
+     *          The new item
+     *
+     * @return the replaced item
+     */
+    public MenuItem replace(int index, @NotNull MenuItem item) {
+        Objects.checkIndex(index, totalToDisplay.size());
+        MenuItem replaced = this.index.replace(index, item);
+        changed();
+        return replaced;
+    }
+
+    /**
+     * Updates the current page if the display items on it, or the amount of pages, have changed.
+     */
+    private void changed() {
+        if (deactivated || inventory == null) { // checked when the next page is shown
+            return;
+        }
+
+        int first = invalidateChanged();
+        int pages = getPageCount();
+        if (first > current && pages == total) {
+            return;
+        }
+
+        this.total = pages;
+        if (total == 0) {
+            this.shown = null;
+            display(Collections.emptyList());
+        } else {
+            this.current = Math.min(current, total - 1);
+            page(0);
+        }
+        update();
+    }
+
+    /**
+     * Registers a way to sort the display items, which can be activated with {@link #sortBy(String)}.
+     * The ordering is computed the first time it's used, and kept up to date when items are added.
+     * If an item changes in a way that affects its position, pass it to {@link #replace(int, MenuItem)} again.
+     *
+     * @param   name
+     *          The name of this sort key
+     *
+     * @param   comparator
+     *          The comparator
+     *
+     * @return the instance of this menu
+     */
+    public PagedMenu sortKey(@NotNull String name, @NotNull Comparator<MenuItem> comparator) {
+        index.sortKey(name, comparator);
+        return this;
+    }
+
+    /**
+     * Registers a filter for the display items, which can be activated with {@link #filterBy(String...)}.
+     * Each item is tested once, and new items are tested when they are added. If an item changes in a way
+     * that affects the result, pass it to {@link #replace(int, MenuItem)} again.
+     *
+     * @param   name
+     *          The name of this filter
+     *
+     * @param   filter
+     *          Returns true if the item should be displayed
+     *
+     * @return the instance of this menu
+     */
+    public PagedMenu filterKey(@NotNull String name, @NotNull Predicate<MenuItem> filter) {
+        index.filterKey(name, filter);
+        return this;
+    }
+
+    /**
+     * Sorts the display items by a registered sort key. If the menu is open, the first page is shown.
+     *
+     * @param   name
+     *          The name of the sort key, or null to display the items in the order they were added.
+     *
+     * @return the instance of this menu
+     */
+    public PagedMenu sortBy(@Nullable String name) {
+        index.sortBy(name);
+        refresh();
+        return this;
+    }
+
+    /**
+     * Only displays the items which pass all given filters. If the menu is open, the first page is shown.
+     *
+     * @param   names
+     *          The names of the filters. If none are given, all items are displayed.
+     *
+     * @return the instance of this menu
+     */
+    public PagedMenu filterBy(@NotNull String... names) {
+        index.filterBy(names);
+        refresh();
+        return this;
+    }
+
+    /**
+     * Only displays the items of which the name or lore contains the query, ignoring case and formatting.
+     * Items are indexed on the first search. When the query extends the previous query, as with typing,
+     * only the results of the previous query are checked. If the menu is open, the first page is shown.
+     *
+     * @param   query
+     *          The query, or null to display all items.
+     *
+     * @return the instance of this menu
+     */
+    public PagedMenu search(@Nullable String query) {
+        index.search(query);
+        refresh();
+        return this;
+    }
+
+    /**
+     * Returns the active search query.
+     *
+     * @return the query, or null if the items aren't being searched.
+     */
+    public @Nullable String getSearch() {
+        return index.getQuery();
+    }
+
+    /**
+     * Recalculates the amount of pages and shows the first page, if this menu is open.
+     */
+    public void refresh() {
+        if (deactivated || inventory == null) {
+            return;
+        }
+
+        this.current = 0;
+        this.total = getPageCount();
+        this.shown = null;
+
+        page(0);
+        update();
     }
 
     /**
@@ -208,7 +760,10 @@ public class PagedMenu extends Menu {
     }
 
     /**
-     * Gets all items that will be displayed.
+     * Gets all items that will be displayed. Changes made directly to this list are picked up when a page is shown,
+     * but drop the sort, filter and search indexes and all rendered pages. Use {@link #addToDisplay(List)},
+     * {@link #insert(int, MenuItem)}, {@link #remove(int)}, {@link #replace(int, MenuItem)} or {@link #setToDisplay(List)}
+     * to keep them.
      *
      * @return all items that will be displayed.
      */
@@ -223,4 +778,73 @@ public class PagedMenu extends Menu {
     public int getCurrent() {
         return current;
     }
+
+    /**
+     * Returns the amount of times a page was shown that had been prefetched.
+     *
+     * @return the amount of prefetch hits
+     */
+    public long getPrefetchHits() {
+        return prefetchHits;
+    }
+
+    /**
+     * Returns the amount of times a page was shown that hadn't been prefetched, while prefetching is enabled.
+     *
+     * @return the amount of prefetch misses
+     */
+    public long getPrefetchMisses() {
+        return prefetchMisses;
+    }
+
+    /**
+     * Returns the amount of prefetched pages that were dropped without being shown.
+     *
+     * @return the amount of wasted prefetches
+     */
+    public long getPrefetchWasted() {
+        return prefetchWasted;
+    }
+
+    /**
+     * Returns the amount of times a page was shown that had already been rendered. Of such a page, only the items
+     * of which the version has changed are built again.
+     *
+     * @return the amount of page cache hits
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Returns the amount of times a page was shown that had to be fetched and built.
+     *
+     * @return the amount of page cache misses
+     */
+    public long getCacheMisses() {
+        return cacheMisses;
+    }
+
+    /**
+     * Returns the share of shown pages that had already been rendered.
+     *
+     * @return the hit ratio, from 0 to 1. 0 if no pages have been shown.
+     */
+    public double getCacheHitRatio() {
+        long shown = cacheHits + cacheMisses;
+        return shown == 0 ? 0 : (double) cacheHits / shown;
+    }
+
+    /**
+     * The items of a page, with the results of building them.
+     */
+    private static final class RenderedPage extends RenderedItems {
+
+        private boolean prefetched;
+        private boolean used;
+
+        private RenderedPage(MenuItem[] items) {
+            super(items);
+        }
+    }
 }
\ No newline at end of file
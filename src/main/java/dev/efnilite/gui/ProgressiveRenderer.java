@@ -0,0 +1,222 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.MenuItem;
+import dev.efnilite.gui.util.Task;
+import dev.efnilite.gui.util.collections.SlotTable;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The single task which renders menus that are opened with {@link Menu#progressive(long)} over multiple ticks.
+ * Every tick, menus take turns building and sending their slots in order of priority until their own budget
+ * or the budget of the tick runs out. This is started once in {@link Menu#init(Plugin)}.
+ * On regionized servers, each menu is rendered by a task on the region of its viewer instead,
+ * within its own budget per tick.
+ *
+ * @author Efnilite
+ */
+public final class ProgressiveRenderer {
+
+    /**
+     * The default amount of nanoseconds all menus together may spend on rendering per tick, 5 ms.
+     */
+    public static final long DEFAULT_TICK_BUDGET = 5_000_000L;
+
+    private final ArrayDeque<Job> jobs = new ArrayDeque<>();
+    private final Set<Job> regional = ConcurrentHashMap.newKeySet();
+    private final LongAdder renderedSlots = new LongAdder();
+
+    private long tickBudget = DEFAULT_TICK_BUDGET;
+    private long lastTickNanos;
+    private Plugin plugin;
+    private BukkitTask task;
+
+    ProgressiveRenderer() {
+
+    }
+
+    /**
+     * Starts rendering menus.
+     *
+     * @param   plugin
+     *          The plugin
+     */
+    void start(@NotNull Plugin plugin) {
+        this.plugin = plugin;
+        task = Task.create(plugin)
+                .repeat(1)
+                .execute(this::tick)
+                .run();
+    }
+
+    /**
+     * Stops rendering and drops all unfinished menus.
+     */
+    void stop() {
+        if (task != null) {
+            task.cancel();
+        }
+        for (Job job : jobs) {
+            job.menu.renderJob = null;
+        }
+        jobs.clear();
+        for (Job job : regional) {
+            job.menu.renderJob = null;
+        }
+        regional.clear();
+    }
+
+    /**
+     * Sets the amount of nanoseconds all menus together may spend on rendering per tick.
+     * Each tick, at least one slot is rendered, so menus always finish.
+     *
+     * @param   nanos
+     *          The budget in nanoseconds
+     */
+    public void tickBudget(long nanos) {
+        if (nanos < 0) {
+            throw new IllegalArgumentException("Budget cannot be under 0");
+        }
+        this.tickBudget = nanos;
+    }
+
+    /**
+     * Starts rendering a menu from the next tick, replacing the unfinished render of that menu.
+     *
+     * @param   menu
+     *          The menu
+     *
+     * @param   budget
+     *          The amount of nanoseconds this menu may spend on rendering per tick
+     */
+    void render(@NotNull Menu menu, long budget) {
+        Job job = new Job(menu, menu.getRenderOrder(), budget);
+        menu.renderJob = job; // a previous job is dropped when it's its turn
+        if (!Task.isRegionized()) {
+            jobs.add(job);
+            return;
+        }
+
+        regional.add(job);
+        BukkitTask[] bound = new BukkitTask[1];
+        bound[0] = Task.create(plugin)
+                .entity(menu.getPlayer())
+                .repeat(1)
+                .execute(() -> {
+                    if (menu.renderJob == job && !menu.deactivated && job.advance(System.nanoTime() + job.budget)) {
+                        return;
+                    }
+                    if (menu.renderJob == job) {
+                        menu.renderJob = null;
+                    }
+                    regional.remove(job);
+                    bound[0].cancel();
+                })
+                .run();
+        menu.task(bound[0]);
+    }
+
+    private void tick() {
+        if (!regional.isEmpty()) { // drop menus of which the task was cancelled with their menu
+            regional.removeIf(job -> job.menu.renderJob != job || job.menu.deactivated);
+        }
+        if (jobs.isEmpty()) {
+            lastTickNanos = 0;
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + tickBudget;
+        int amount = jobs.size();
+        for (int i = 0; i < amount; i++) {
+            long now = System.nanoTime();
+            if (i > 0 && now >= deadline) { // the rest keep their turn for the next tick
+                break;
+            }
+
+            Job job = jobs.poll();
+            if (job.menu.renderJob != job || job.menu.deactivated) {
+                continue;
+            }
+
+            if (job.advance(Math.min(deadline, now + job.budget))) {
+                jobs.add(job);
+            } else {
+                job.menu.renderJob = null;
+            }
+        }
+        lastTickNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the amount of menus which haven't been fully rendered yet.
+     *
+     * @return the amount of pending menus
+     */
+    public int getPendingMenus() {
+        return jobs.size() + regional.size();
+    }
+
+    /**
+     * Returns the total amount of slots which have been rendered progressively.
+     *
+     * @return the amount of rendered slots
+     */
+    public long getRenderedSlots() {
+        return renderedSlots.sum();
+    }
+
+    /**
+     * Returns the time the last tick with pending menus spent on rendering.
+     * On regionized servers, menus are rendered per region, so this isn't measured.
+     *
+     * @return the time in nanoseconds, or 0 if no menus were pending in the last tick.
+     */
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    /**
+     * The slots of a menu which still have to be rendered.
+     */
+    final class Job {
+
+        private final Menu menu;
+        private final int[] order;
+        private final long budget;
+        private int position;
+
+        private Job(Menu menu, int[] order, long budget) {
+            this.menu = menu;
+            this.order = order;
+            this.budget = budget;
+        }
+
+        /**
+         * Renders slots until the deadline has passed, and at least one.
+         *
+         * @return false if all slots have been rendered
+         */
+        private boolean advance(long until) {
+            SlotTable<MenuItem> items = menu.getSlotTable();
+            while (position < order.length) {
+                int slot = order[position++];
+                if (items.contains(slot)) {
+                    menu.send(slot, menu.render(slot));
+                    renderedSlots.increment();
+                }
+
+                if (System.nanoTime() >= until) {
+                    break;
+                }
+            }
+            return position < order.length;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.MenuItem;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The items of a page or row, with the results of building them. A result is kept until the version
+ * of its item changes, see {@link MenuItem#getVersion()}, so showing the items again doesn't build them again.
+ *
+ * @author Efnilite
+ */
+class RenderedItems {
+
+    final MenuItem[] items;
+    private final ItemStack[] stacks;
+    private final long[] versions;
+
+    RenderedItems(MenuItem[] items) {
+        this.items = items;
+        this.stacks = new ItemStack[items.length];
+        this.versions = new long[items.length];
+        Arrays.fill(versions, -1);
+    }
+
+    /**
+     * Returns the versions of items. Read them before building the items, so a change during the build
+     * makes the result outdated instead of being missed.
+     *
+     * @param   items
+     *          The items
+     *
+     * @return the versions
+     */
+    static long[] getVersions(MenuItem[] items) {
+        long[] versions = new long[items.length];
+        for (int i = 0; i < items.length; i++) {
+            versions[i] = items[i] == null ? -1 : items[i].getVersion();
+        }
+        return versions;
+    }
+
+    /**
+     * Returns the kept result of an item.
+     *
+     * @param   index
+     *          The index of the item
+     *
+     * @param   item
+     *          The item which is displayed at that index
+     *
+     * @return the result, or null if the item has to be built.
+     */
+    @Nullable
+    ItemStack get(int index, @Nullable MenuItem item) {
+        if (item == null || index < 0 || index >= items.length || items[index] != item) {
+            return null;
+        }
+        long version = versions[index];
+        return version != -1 && item.getVersion() == version ? stacks[index] : null;
+    }
+
+    /**
+     * Keeps the result of an item, unless another item is displayed at that index.
+     *
+     * @param   index
+     *          The index of the item
+     *
+     * @param   item
+     *          The item which was built
+     *
+     * @param   stack
+     *          The result
+     *
+     * @param   version
+     *          The version of the item, read before it was built
+     */
+    void put(int index, @Nullable MenuItem item, @Nullable ItemStack stack, long version) {
+        if (item == null || stack == null || index < 0 || index >= items.length || items[index] != item) {
+            return;
+        }
+        stacks[index] = stack;
+        versions[index] = version;
+    }
+
+    /**
+     * Keeps the results of building all items.
+     *
+     * @param   built
+     *          The results, null for items which weren't built
+     *
+     * @param   versions
+     *          The versions of the items, read before they were built
+     */
+    void putAll(ItemStack[] built, long[] versions) {
+        for (int i = 0; i < items.length && i < built.length; i++) {
+            put(i, items[i], built[i], versions[i]);
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.FillerItem;
+import dev.efnilite.gui.item.MenuItem;
+import dev.efnilite.gui.util.Numbers;
+import net.kyori.adventure.text.Component;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * A menu which scrolls over its display items one row at a time.
+ * Rendered rows are kept in a ring buffer with their built items, so scrolling only fetches and builds the row
+ * that comes into view. Items in rows that are still rendered are only built again if their version has changed,
+ * see {@link MenuItem#getVersion()}.
+ * Add items with {@link #addToDisplay(List)}, or provide them on demand with {@link #source(PageSource)}.
+ *
+ * @author Efnilite
+ */
+public class ScrollMenu extends Menu {
+
+    private int top;
+    private int firstSlot;
+    private int visibleRows;
+    private int upSlot = -1;
+    private MenuItem upItem;
+    private int downSlot = -1;
+    private MenuItem downItem;
+    private MenuItem placeholder;
+    private PageSource source;
+    private final DisplayList totalToDisplay = new DisplayList();
+    private final PageSource displaySource = PageSource.of(totalToDisplay);
+    private int modifications; // of the display items, when the rows were last rendered
+
+    // Rendered rows, at the index of the row modulo the length of the ring
+    private int[] ringRows = new int[0];
+    private RenderedItems[] ringItems = new RenderedItems[0];
+    private int generation;
+    private long rowsFetched;
+    private long rowsReused;
+
+    /**
+     * Constructor for a scroll menu.
+     *
+     * @param   rows
+     *          The amount of rows this menu will have.
+     *
+     * @param   title
+     *          The title.
+     */
+    public ScrollMenu(int rows, Component title) {
+        super(rows, title);
+    }
+
+    /**
+     * Sets the rows in which items will be displayed.
+     *
+     * @param   rows
+     *          The rows which will display the items provided in {@link #addToDisplay(List)}. Starts from 0.
+     *
+     * @return the instance of this menu
+     */
+    public ScrollMenu displayRows(int... rows) {
+        int begin = Integer.MAX_VALUE;
+        int end = Integer.MIN_VALUE;
+
+        for (int row : rows) {
+            if (row < 0 || row > 5) {
+                throw new IllegalArgumentException("Row must be above 0 and below 6!");
+            }
+
+            begin = Numbers.min(begin, row);
+            end = Numbers.max(end, row);
+        }
+        this.firstSlot = begin * 9;
+        this.visibleRows = end - begin + 1;
+
+        // one spare row on each side, so scrolling back and forth reuses both
+        this.ringRows = new int[visibleRows + 2];
+        this.ringItems = new RenderedItems[ringRows.length];
+        Arrays.fill(ringRows, -1);
+        return this;
+    }
+
+    /**
+     * Sets the source which provides the items on demand. Only the items of the rows that are being viewed are fetched.
+     * If a source is set, the items added with {@link #addToDisplay(List)} are ignored.
+     *
+     * @param   source
+     *          The source
+     *
+     * @return the instance of this menu
+     */
+    public ScrollMenu source(@Nullable PageSource source) {
+        this.source = source;
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Sets the item which is displayed in a row while the source is still fetching it.
+     * By default, the background filler.
+     *
+     * @param   placeholder
+     *          The placeholder
+     *
+     * @return the instance of this menu
+     */
+    public ScrollMenu placeholder(@Nullable MenuItem placeholder) {
+        this.placeholder = placeholder;
+        return this;
+    }
+
+    /**
+     * Set the item which players can use to scroll up one row.
+     *
+     * @param   slot
+     *          The slot.
+     *
+     * @param   item
+     *          The item.
+     *
+     * @return the instance of this menu
+     */
+    public ScrollMenu scrollUp(int slot, MenuItem item) {
+        this.upSlot = slot;
+        this.upItem = item;
+        return this;
+    }
+
+    /**
+     * Set the item which players can use to scroll down one row.
+     *
+     * @param   slot
+     *          The slot.
+     *
+     * @param   item
+     *          The item.
+     *
+     * @return the instance of this menu
+     */
+    public ScrollMenu scrollDown(int slot, MenuItem item) {
+        this.downSlot = slot;
+        this.downItem = item;
+        return this;
+    }
+
+    /**
+     * Adds item to the display.
+     *
+     * @param   items
+     *          The items
+     *
+     * @return the instance of this menu
+     */
+    public ScrollMenu addToDisplay(List<MenuItem> items) {
+        int last = totalToDisplay.size() / 9; // the last row may have been partially filled
+        totalToDisplay.addAll(items);
+        modifications = totalToDisplay.getModifications();
+
+        for (int i = 0; i < ringRows.length; i++) {
+            if (ringRows[i] >= last) {
+                ringRows[i] = -1;
+            }
+        }
+        refresh();
+        return this;
+    }
+
+    /**
+     * Sets all the display items in one go.
+     *
+     * @param   items
+     *          The items to display
+     */
+    public void setToDisplay(List<MenuItem> items) {
+        totalToDisplay.clear();
+        totalToDisplay.addAll(items);
+        invalidate();
+        refresh();
+    }
+
+    @Override
+    protected void opening() {
+        this.top = 0;
+        if (source != null) { // changes to the items of a source can't be tracked
+            invalidate();
+        }
+
+        show();
+    }
+
+    /**
+     * Scrolls the display rows.
+     *
+     * @param   delta
+     *          The amount of rows to scroll. -1 will scroll up one row, 1 will scroll down one row.
+     */
+    public void scroll(int delta) {
+        scrollTo(top + delta);
+    }
+
+    /**
+     * Scrolls the display rows, so a row is at the top. Stops at the first and last rows.
+     *
+     * @param   row
+     *          The row, starting from 0.
+     */
+    public void scrollTo(int row) {
+        int newTop = Math.max(0, Math.min(row, getMaxTop()));
+        if (newTop == top) {
+            return;
+        }
+
+        this.top = newTop;
+        show();
+        update();
+    }
+
+    /**
+     * Shows the rows from the current top row again, if this menu is open. Rows which are still rendered are reused.
+     */
+    public void refresh() {
+        if (deactivated || inventory == null) {
+            return;
+        }
+
+        this.top = Math.min(top, getMaxTop());
+        show();
+        update();
+    }
+
+    /**
+     * Drops all rendered rows. Required when the items of a {@link PageSource} have changed.
+     */
+    public void invalidate() {
+        Arrays.fill(ringRows, -1);
+        Arrays.fill(ringItems, null);
+        generation++;
+        modifications = totalToDisplay.getModifications();
+    }
+
+    private void show() {
+        if (totalToDisplay.getModifications() != modifications) { // changed directly, so any row may have changed
+            invalidate();
+        }
+
+        MenuItem missingFiller = filler == null ? null : FillerItem.of(filler);
+
+        if (upSlot != -1) {
+            items.put(upSlot, top > 0 ? upItem : missingFiller);
+        }
+        if (downSlot != -1) {
+            items.put(downSlot, top < getMaxTop() ? downItem : missingFiller);
+        }
+
+        int rowCount = getRowCount();
+        for (int i = 0; i < visibleRows; i++) {
+            int row = top + i;
+            if (row < rowCount) {
+                load(row);
+            }
+            place(i, row < rowCount ? row % ringRows.length : -1);
+        }
+    }
+
+    /**
+     * Makes sure a row is in the ring, fetching and building it if it isn't.
+     */
+    private void load(int row) {
+        int index = row % ringRows.length;
+        if (ringRows[index] == row) {
+            rowsReused++;
+            return;
+        }
+
+        ringRows[index] = row;
+        ringItems[index] = null;
+
+        CompletableFuture<List<MenuItem>> future = getSource().fetchAsync(row * 9, 9);
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            store(index, future.join());
+            return;
+        }
+
+        int fetchedGeneration = generation;
+        future.whenComplete((values, error) -> sync(() -> {
+            if (error != null) {
+                PLUGIN.getLogger().log(Level.SEVERE, "Error while fetching row " + row, error);
+            }
+            if (deactivated || fetchedGeneration != generation || ringRows[index] != row) { // row was replaced
+                return;
+            }
+
+            int visible = row - top;
+            if (error != null) { // display nothing, the row is fetched again when it comes into view again
+                ringRows[index] = -1;
+            } else {
+                store(index, values);
+            }
+            if (visible >= 0 && visible < visibleRows) {
+                place(visible, error != null ? -1 : index);
+                update();
+            }
+        }));
+    }
+
+    // the items are built when the menu is updated, and their results are kept in the ring
+    private void store(int index, List<MenuItem> values) {
+        ringItems[index] = new RenderedItems(values.toArray(new MenuItem[0]));
+        rowsFetched++;
+    }
+
+    /**
+     * Sets the items of a ring entry in a visible row.
+     *
+     * @param   visible
+     *          The visible row, starting from 0
+     *
+     * @param   index
+     *          The index in the ring, or -1 if the row is past the last item.
+     */
+    private void place(int visible, int index) {
+        MenuItem empty = filler == null ? null : FillerItem.of(filler);
+        MenuItem pending = placeholder == null ? empty : placeholder;
+        MenuItem[] row = index == -1 ? new MenuItem[0] : ringItems[index] == null ? null : ringItems[index].items;
+
+        for (int column = 0; column < 9; column++) {
+            int slot = firstSlot + visible * 9 + column;
+            if (row == null) {
+                items.put(slot, pending);
+            } else {
+                items.put(slot, column < row.length ? row[column] : empty);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Items in the display rows are only built again if their version has changed since they were last built.
+     */
+    @Override
+    public @Nullable ItemStack render(int slot) {
+        int offset = slot - firstSlot;
+        if (offset < 0 || offset >= visibleRows * 9) {
+            return super.render(slot);
+        }
+
+        int row = top + offset / 9;
+        int index = row % ringRows.length;
+        RenderedItems rendered = ringRows[index] == row ? ringItems[index] : null;
+        if (rendered == null) {
+            return super.render(slot);
+        }
+
+        MenuItem item = items.get(slot);
+        ItemStack stack = rendered.get(offset % 9, item);
+        if (stack != null) {
+            return stack;
+        }
+
+        long version = item == null ? -1 : item.getVersion();
+        stack = super.render(slot);
+        rendered.put(offset % 9, item, stack, version);
+        return stack;
+    }
+
+    @Override
+    protected int[] getRenderOrder() {
+        return prioritize(super.getRenderOrder(), firstSlot, firstSlot + visibleRows * 9);
+    }
+
+    private PageSource getSource() {
+        return source == null ? displaySource : source;
+    }
+
+    /**
+     * Returns the amount of rows, based on the amount of items.
+     *
+     * @return the amount of rows
+     */
+    public int getRowCount() {
+        return (getSource().size() + 8) / 9;
+    }
+
+    private int getMaxTop() {
+        return Math.max(0, getRowCount() - visibleRows);
+    }
+
+    /**
+     * Gets all items that will be displayed. Changes made directly to this list are picked up when the rows are shown again,
+     * but drop all rendered rows. Use {@link #addToDisplay(List)} or {@link #setToDisplay(List)} to keep them.
+     *
+     * @return all items that will be displayed.
+     */
+    public List<MenuItem> getTotalToDisplay() {
+        return totalToDisplay;
+    }
+
+    /**
+     * Returns the row which is displayed at the top.
+     *
+     * @return the top row, starting from 0.
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * Returns the amount of rows which have been fetched, because they weren't in the ring.
+     *
+     * @return the amount of fetched rows
+     */
+    public long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    /**
+     * Returns the amount of times a row came into view that was still rendered.
+     *
+     * @return the amount of reused rows
+     */
+    public long getRowsReused() {
+        return rowsReused;
+    }
+}
@@ -0,0 +1,160 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.Item;
+import dev.efnilite.gui.item.MenuItem;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * A trigram index over the plain text of the names and lore of display items.
+ * The text of every item is extracted once, when it is added.
+ * A query that extends the previous query only checks the results of the previous query.
+ *
+ * @author Efnilite
+ */
+final class SearchIndex {
+
+    private final List<String> texts = new ArrayList<>();
+    private final Map<Long, BitSet> trigrams = new HashMap<>();
+
+    private String lastQuery;
+    private BitSet lastResult;
+
+    /**
+     * Adds an item to the end of this index.
+     *
+     * @param   item
+     *          The item
+     */
+    void add(@NotNull MenuItem item) {
+        insert(texts.size(), item);
+    }
+
+    /**
+     * Inserts an item, shifting the items at and after its position.
+     *
+     * @param   position
+     *          The position
+     *
+     * @param   item
+     *          The item
+     */
+    void insert(int position, @NotNull MenuItem item) {
+        String text = getText(item);
+        boolean appended = position == texts.size();
+        texts.add(position, text);
+
+        if (!appended) {
+            for (BitSet set : trigrams.values()) {
+                DisplayIndex.shift(set, position, 1);
+            }
+            if (lastResult != null) {
+                DisplayIndex.shift(lastResult, position, 1);
+            }
+        }
+
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.computeIfAbsent(getTrigram(text, i), key -> new BitSet()).set(position);
+        }
+
+        if (lastResult != null && text.contains(lastQuery)) { // keep the last result up to date
+            lastResult.set(position);
+        }
+    }
+
+    /**
+     * Removes an item, shifting the items after its position.
+     *
+     * @param   position
+     *          The position
+     */
+    void remove(int position) {
+        texts.remove(position);
+
+        for (BitSet set : trigrams.values()) {
+            DisplayIndex.shift(set, position, -1);
+        }
+        if (lastResult != null) {
+            DisplayIndex.shift(lastResult, position, -1);
+        }
+    }
+
+    /**
+     * Returns the positions of all items of which the name or lore contains the query, ignoring case.
+     * The result must not be modified.
+     *
+     * @param   query
+     *          The query
+     *
+     * @return the positions of the matching items
+     */
+    BitSet search(@NotNull String query) {
+        query = query.toLowerCase(Locale.ROOT);
+        if (query.equals(lastQuery)) {
+            return lastResult;
+        }
+
+        BitSet candidates;
+        if (lastQuery != null && query.contains(lastQuery)) { // narrow the previous result
+            candidates = (BitSet) lastResult.clone();
+        } else {
+            candidates = new BitSet(texts.size());
+            candidates.set(0, texts.size());
+        }
+
+        for (int i = 0; i + 3 <= query.length() && !candidates.isEmpty(); i++) {
+            BitSet containing = trigrams.get(getTrigram(query, i));
+            if (containing == null) {
+                candidates.clear();
+            } else {
+                candidates.and(containing);
+            }
+        }
+
+        for (int position = candidates.nextSetBit(0); position >= 0; position = candidates.nextSetBit(position + 1)) {
+            if (!texts.get(position).contains(query)) { // trigrams may match out of order
+                candidates.clear(position);
+            }
+        }
+
+        lastQuery = query;
+        lastResult = candidates;
+        return candidates;
+    }
+
+    /**
+     * Returns the amount of items in this index.
+     *
+     * @return the amount of items
+     */
+    int size() {
+        return texts.size();
+    }
+
+    private static long getTrigram(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    private static String getText(MenuItem menuItem) {
+        if (!(menuItem instanceof Item item)) {
+            return "";
+        }
+
+        StringBuilder builder = new StringBuilder();
+        String name = item.getNameAsString();
+        if (name != null) {
+            builder.append(MiniMessage.miniMessage().stripTags(name));
+        } else if (item.getNameAsComponent() != null) {
+            builder.append(PlainTextComponentSerializer.plainText().serialize(item.getNameAsComponent()));
+        }
+
+        for (Component line : item.getLore()) {
+            builder.append('\n').append(PlainTextComponentSerializer.plainText().serialize(line));
+        }
+        return builder.toString().toLowerCase(Locale.ROOT);
+    }
+}
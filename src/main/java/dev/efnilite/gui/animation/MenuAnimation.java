@@ -1,22 +1,24 @@
 package dev.efnilite.gui.animation;
 
 import dev.efnilite.gui.Menu;
-import dev.efnilite.gui.item.MenuItem;
-import dev.efnilite.gui.util.Task;
-import org.bukkit.inventory.Inventory;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Super class for all Menu Opening Animations.
+ * The steps of an animation are compiled once per amount of rows. Animations which return true in {@link #isShared()}
+ * are compiled once per type, amount of rows and seed instead, and share their steps with all menus.
+ * Animations are played by the {@link dev.efnilite.gui.AnimationDriver}.
  *
  * @author Efnilite
  */
 public abstract class MenuAnimation {
 
-    private int currentStep = 0;
-    private BukkitTask task;
+    private static final Map<Key, Frames> COMPILED = new ConcurrentHashMap<>();
+
+    private Frames frames;
+    private int compiledRows;
 
     /**
      * The amount of ticks per step
@@ -24,7 +26,7 @@ public abstract class MenuAnimation {
     protected int ticksPerStep = 1;
 
     /**
-     * Which slots will be set on which ticks?
+     * Which slots will be set on which ticks? Only used while compiling.
      */
     protected Map<Integer, List<Integer>> steps = new HashMap<>();
 
@@ -77,7 +79,9 @@ public abstract class MenuAnimation {
     }
 
     /**
-     * Initializes this animation, settings all slots
+     * Initializes this animation, settings all slots with {@link #add(int, List)}.
+     * Only called the first time this animation is compiled for an amount of rows, or if it's shared,
+     * the first time an animation of this type is compiled for an amount of rows and seed.
      *
      * @param   rows
      *          The amount of rows the eventual inventory will have.
@@ -85,34 +89,91 @@ public abstract class MenuAnimation {
     public abstract void init(int rows);
 
     /**
-     * Starts the animation
+     * Returns whether the steps of this animation may be shared with all animations of the same type and seed,
+     * see {@link #getSeed()}. Only return true if the steps only depend on the amount of rows and the seed,
+     * not on other properties, such as constructor parameters. By default false.
+     *
+     * @return true if the steps are shared
+     */
+    protected boolean isShared() {
+        return false;
+    }
+
+    /**
+     * Returns the seed of a shared animation. Shared animations of the same type with the same seed must set
+     * the same slots on the same ticks, since their steps are shared. Not used if {@link #isShared()} returns false.
+     * By default 0.
+     *
+     * @return the seed
+     */
+    protected long getSeed() {
+        return 0;
+    }
+
+    /**
+     * Compiles the steps of this animation for an amount of rows, or reuses them if they have been compiled before.
+     *
+     * @param   rows
+     *          The amount of rows the eventual inventory will have.
+     */
+    public void compile(int rows) {
+        if (isShared()) {
+            frames = COMPILED.computeIfAbsent(new Key(getClass(), rows, getSeed()), key -> build(rows));
+        } else if (frames == null || compiledRows != rows) {
+            frames = build(rows);
+        }
+        compiledRows = rows;
+        ticksPerStep = frames.ticksPerStep();
+    }
+
+    private Frames build(int rows) {
+        steps = new HashMap<>();
+        init(rows);
+
+        Frames compiled = Frames.of(steps, ticksPerStep, rows);
+        steps = new HashMap<>();
+        return compiled;
+    }
+
+    /**
+     * Starts the animation in a menu.
+     *
+     * @param   menu
+     *          The menu
      */
     public void run(Menu menu) {
-        Map<Integer, MenuItem> items = menu.getItems();
-        Inventory top = menu.getPlayer().getOpenInventory().getTopInventory();
-        task = Task.create(Menu.PLUGIN)
-                .execute(() -> {
-                    List<Integer> slots = steps.get(currentStep);
-                    if (slots == null || slots.isEmpty()) {
-                        stop();
-                        return;
-                    }
-
-                    for (int slot : slots) {
-                        MenuItem item = items.get(slot);
-                        if (item != null) {
-                            top.setItem(slot, item.build());
-                        }
-                    }
-
-                    currentStep++;
-                })
-                .repeat(ticksPerStep)
-                .run();
+        Menu.getAnimationDriver().play(menu, this);
     }
 
-    public void stop() {
-        task.cancel();
+    /**
+     * Stops the animation in a menu.
+     *
+     * @param   menu
+     *          The menu
+     */
+    public void stop(Menu menu) {
+        Menu.getAnimationDriver().stop(menu);
+    }
+
+    /**
+     * Returns the compiled steps, which are shared and must not be modified.
+     *
+     * @return the slots which are set on each step
+     */
+    public int[][] getFrames() {
+        if (frames == null) {
+            throw new IllegalStateException("Animation has not been compiled");
+        }
+        return frames.slots();
+    }
+
+    /**
+     * Returns the amount of ticks between steps.
+     *
+     * @return the ticks per step
+     */
+    public int getTicksPerStep() {
+        return ticksPerStep;
     }
 
     /**
@@ -158,4 +219,31 @@ public abstract class MenuAnimation {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    private record Key(Class<?> type, int rows, long seed) {
+
+    }
+
+    /**
+     * The slots which are set on each step, and the amount of ticks between steps.
+     */
+    private record Frames(int[][] slots, int ticksPerStep) {
+
+        // steps run from tick 0 until the first tick without slots
+        private static Frames of(Map<Integer, List<Integer>> steps, int ticksPerStep, int rows) {
+            List<int[]> frames = new ArrayList<>();
+            for (int tick = 0; ; tick++) {
+                List<Integer> slots = steps.get(tick);
+                if (slots == null || slots.isEmpty()) {
+                    break;
+                }
+
+                frames.add(slots.stream()
+                        .mapToInt(Integer::intValue)
+                        .filter(slot -> slot >= 0 && slot < rows * 9)
+                        .toArray());
+            }
+            return new Frames(frames.toArray(new int[0][]), ticksPerStep);
+        }
+    }
+}
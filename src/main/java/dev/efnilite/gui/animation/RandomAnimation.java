@@ -1,7 +1,5 @@
 package dev.efnilite.gui.animation;
 
-import dev.efnilite.gui.util.Numbers;
-
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -14,6 +12,8 @@ import java.util.concurrent.ThreadLocalRandom;
  * --------- > x-------- > x--x---x- > x--x---x- > etc.
  * ---------   ----x----   -x--x----   -x--x--x-
  *
+ * By default, one of a fixed amount of variants is picked, so only that many versions are ever compiled.
+ *
  * Expected duration: 18 ticks
  * Expected time: 900ms
  *
@@ -21,33 +21,61 @@ import java.util.concurrent.ThreadLocalRandom;
  */
 public final class RandomAnimation extends MenuAnimation {
 
-    // the amount of items per tick
-    private int amountPerTick;
-    private Random random;
-    private List<Integer> available;
+    /**
+     * The amount of variants a random animation without a seed picks from.
+     */
+    public static final int VARIANTS = 16;
+
+    private final long seed;
+
+    /**
+     * Creates a random animation, which picks one of {@link #VARIANTS} variants.
+     */
+    public RandomAnimation() {
+        this(ThreadLocalRandom.current().nextInt(VARIANTS));
+    }
+
+    /**
+     * Creates a random animation with a seed. Animations with the same seed set the slots in the same order.
+     *
+     * @param   seed
+     *          The seed
+     */
+    public RandomAnimation(long seed) {
+        this.seed = seed;
+    }
 
     @Override
     public void init(int rows) {
-        random = ThreadLocalRandom.current();
-        available = Numbers.getFromZero(rows * 9 - 1);
+        Random random = new Random(seed);
+        int[] available = new int[rows * 9];
+        for (int i = 0; i < available.length; i++) {
+            available[i] = i;
+        }
+        int remaining = available.length;
 
         ticksPerStep(1);
-        amountPerTick = rows;
         // (9 * 2) / 1 = 18 ticks, and thus for
         // (9n * 2) / n = 18
 
         for (int i = 0; i < 9; i++) {
-            add(i, getRandomSlots());
+            List<Integer> slots = new ArrayList<>(rows); // rows slots per tick
+            for (int j = 0; j < rows; j++) {
+                int index = random.nextInt(remaining);
+                slots.add(available[index]);
+                available[index] = available[--remaining]; // swap the last available slot in
+            }
+            add(i, slots);
         }
     }
 
-    private List<Integer> getRandomSlots() {
-        List<Integer> result = new ArrayList<>();
-        for (int i = 0; i < amountPerTick; i++) {
-            int index = random.nextInt(available.size());
-            result.add(available.get(index));
-            available.remove(index);
-        }
-        return result;
+    @Override
+    protected long getSeed() {
+        return seed;
+    }
+
+    @Override
+    protected boolean isShared() {
+        return true;
     }
 }
@@ -1,7 +1,5 @@
 package dev.efnilite.gui.animation;
 
-import dev.efnilite.gui.util.vector.Vector2D;
-
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,66 +17,50 @@ import java.util.List;
  */
 public final class SnakeSingleAnimation extends MenuAnimation {
 
-    private int rows;
-    private int currentSlot = 0;
-    private final Vector2D heading = new Vector2D(0, -1);
-    private final List<Integer> path = new ArrayList<>();
+    /**
+     * The slot offsets of the headings, in the order the snake turns: down, right, up and left.
+     */
+    private static final int[] HEADINGS = { 9, 1, -9, -1 };
 
     @Override
     public void init(int rows) {
-        this.rows = rows;
-
         ticksPerStep(1);
 
-        path.add(0);
-        for (int i = 0; i < rows * 9 - 1; i++) { // loop amount of slots times
-            int slot = getNextSlot();
-            path.add(slot);
-        }
+        int size = rows * 9;
+        boolean[] visited = new boolean[size];
+        int[] path = new int[size];
+        int heading = 0;
+        int current = 0;
+        visited[0] = true;
 
-        int i = 0;
-        while (path.size() > 0) {
-            add(i, getFromPath());
-            i++;
+        for (int i = 1; i < size; i++) { // loop amount of slots times
+            int next = current + HEADINGS[heading];
+            for (int turns = 0; turns < 4 && !available(next, visited); turns++) { // if not, turn and try again
+                heading = (heading + 1) % 4;
+                next = current + HEADINGS[heading];
+            }
+
+            current = next;
+            visited[current] = true;
+            path[i] = current;
         }
-    }
 
-    private List<Integer> getFromPath() {
-        List<Integer> result = new ArrayList<>();
-        for (int i = 0; i < 2; i++) {
-            if (path.size() == 0) {
-                break;
+        for (int i = 0; i < size; i += 2) { // two slots per tick
+            List<Integer> slots = new ArrayList<>(2);
+            slots.add(path[i]);
+            if (i + 1 < size) {
+                slots.add(path[i + 1]);
             }
-            result.add(path.get(0));
-            path.remove(0);
+            add(i / 2, slots);
         }
-        return result;
     }
 
-    private int getNextSlot() {
-        int horizontal = (int) heading.x;
-        int vertical = (int) heading.y;
-
-        int next;
-        if (horizontal != 0) { // get next horizontal
-            next = currentSlot + horizontal;
-        } else { // get next vertical
-            next = currentSlot - (vertical * 9);
-        }
-
-        if (available(next)) { // check if slot is available or existent
-            currentSlot = next;
-            return currentSlot;
-        } else {
-            heading.rotate(-90); // if not, rotate vector and try again
-            return getNextSlot();
-        }
+    private boolean available(int slot, boolean[] visited) { // check if slot is available or existent
+        return slot >= 0 && slot < visited.length && !visited[slot];
     }
 
-    private boolean available(int slot) {
-        if (slot > rows * 9 - 1 || slot < 0) {
-            return false;
-        }
-        return !path.contains(slot);
+    @Override
+    protected boolean isShared() {
+        return true;
     }
-}
\ No newline at end of file
+}
@@ -32,4 +32,9 @@ public final class SplitMiddleInAnimation extends MenuAnimation {
 
         add(4, getVertical(4, rows));
     }
+
+    @Override
+    protected boolean isShared() {
+        return true;
+    }
 }
@@ -32,4 +32,9 @@ public final class SplitMiddleOutAnimation extends MenuAnimation {
         add(4, getVertical(8, rows));
         add(4, getVertical(0, rows));
     }
+
+    @Override
+    protected boolean isShared() {
+        return true;
+    }
 }
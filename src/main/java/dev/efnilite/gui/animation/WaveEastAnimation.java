@@ -27,4 +27,9 @@ public final  class WaveEastAnimation extends MenuAnimation {
         add(7, getVertical(7, rows));
         add(8, getVertical(8, rows));
     }
+
+    @Override
+    protected boolean isShared() {
+        return true;
+    }
 }
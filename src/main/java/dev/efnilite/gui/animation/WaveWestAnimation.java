@@ -27,4 +27,9 @@ public final class WaveWestAnimation extends MenuAnimation {
         add(7, getVertical(1, rows));
         add(8, getVertical(0, rows));
     }
+
+    @Override
+    protected boolean isShared() {
+        return true;
+    }
 }
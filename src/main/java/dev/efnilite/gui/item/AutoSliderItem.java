@@ -3,13 +3,10 @@ package dev.efnilite.gui.item;
 import com.google.common.annotations.Beta;
 import dev.efnilite.gui.Menu;
 import dev.efnilite.gui.MenuClickEvent;
-import dev.efnilite.gui.util.Task;
 import dev.efnilite.gui.util.collections.ViMap;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.function.Consumer;
 
@@ -111,25 +108,14 @@ public class AutoSliderItem extends MenuItem {
             init = items.get(items.randomKey());
         }
 
-        if (items.size() > 1) { // loop through if there are more than 1 players
-            BukkitRunnable runnable = new BukkitRunnable() {
-                @Override
-                public void run() {
-                    InventoryView view = menu.getPlayer().getOpenInventory();
-
-                    if (view.title().equals(menu.getTitle())) {
-                        view.getTopInventory().setItem(slot, getNextItem().build());
-                    } else {
-                        cancel(); // prevent going on forever
-                    }
+        if (items.size() > 1) { // loop through if there are more than 1 players, only scheduled once per slot
+            int period = Math.max(1, cooldown);
+            Menu.Session session = menu.getSession();
+            menu.schedule(slot, this, period, period, () -> {
+                if (session != null && session.isActive()) {
+                    menu.send(slot, getNextItem().build());
                 }
-            };
-
-            Task task = Task.create(Menu.PLUGIN)
-                    .delay(cooldown)
-                    .repeat(cooldown)
-                    .execute(runnable);
-            task.run();
+            });
         }
 
         return init.build();
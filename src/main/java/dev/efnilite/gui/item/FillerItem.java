@@ -0,0 +1,144 @@
+package dev.efnilite.gui.item;
+
+import dev.efnilite.gui.ClickHandle;
+import dev.efnilite.gui.Menu;
+import dev.efnilite.gui.MenuClickEvent;
+import org.bukkit.Material;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.inventory.ItemStack;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A background item which is shared between all menus. There is only one instance per material and name,
+ * and it is built only once.
+ *
+ * @author Efnilite
+ */
+public final class FillerItem extends MenuItem {
+
+    /**
+     * The default name of fillers, which is empty.
+     */
+    public static final String DEFAULT_NAME = "<red> ";
+
+    private static final Map<Key, FillerItem> fillers = new ConcurrentHashMap<>();
+    private static final AtomicBoolean warned = new AtomicBoolean();
+
+    private final Material material;
+    private final ItemStack stack;
+
+    private FillerItem(Material material, String name) {
+        this.material = material;
+        this.stack = new Item(material, name).build();
+    }
+
+    /**
+     * Returns the filler of a material, with an empty name.
+     *
+     * @param   material
+     *          The material
+     *
+     * @return the shared filler
+     */
+    public static FillerItem of(@NotNull Material material) {
+        return of(material, DEFAULT_NAME);
+    }
+
+    /**
+     * Returns the filler of a material and name.
+     *
+     * @param   material
+     *          The material
+     *
+     * @param   name
+     *          The name, as a MiniMessage string
+     *
+     * @return the shared filler
+     */
+    public static FillerItem of(@NotNull Material material, @NotNull String name) {
+        return fillers.computeIfAbsent(new Key(material, name), key -> new FillerItem(key.material(), key.name()));
+    }
+
+    /**
+     * Fillers are shared between menus, so they can't have click functions. The function is ignored,
+     * and a warning is logged the first time this happens.
+     *
+     * @return the instance of this class
+     */
+    @Override
+    public MenuItem click(Consumer<MenuClickEvent> consumer, ClickType... clickType) {
+        ignored();
+        return this;
+    }
+
+    /**
+     * Fillers are shared between menus, so they can't have click functions. The function is ignored,
+     * and a warning is logged the first time this happens.
+     *
+     * @return the instance of this class
+     */
+    @Override
+    public MenuItem clickAsync(BiConsumer<MenuClickEvent, ClickHandle> handler, ClickType... clickType) {
+        ignored();
+        return this;
+    }
+
+    private static void ignored() {
+        if (Menu.PLUGIN != null && warned.compareAndSet(false, true)) {
+            Menu.PLUGIN.getLogger().warning("Click functions of fillers are ignored, since fillers are shared between menus. " +
+                    "Set an Item in the slot instead.");
+        }
+    }
+
+    @Override
+    public ItemStack build() {
+        return stack.clone();
+    }
+
+    /**
+     * Returns the built item without copying it. This instance is shared, so it must not be modified.
+     *
+     * @return the shared built item
+     */
+    public ItemStack getStack() {
+        return stack;
+    }
+
+    /**
+     * Gets the item type
+     *
+     * @return the type
+     */
+    public Material getMaterial() {
+        return material;
+    }
+
+    @Override
+    public boolean isMovable() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Fillers never change.
+     */
+    @Override
+    public long getVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean isAsyncSafe() {
+        return true;
+    }
+
+    private record Key(Material material, String name) {
+
+    }
+}
@@ -1,8 +1,8 @@
 package dev.efnilite.gui.item;
 
+import dev.efnilite.gui.util.ComponentCache;
 import dev.efnilite.gui.util.Version;
 import net.kyori.adventure.text.Component;
-import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
@@ -12,6 +12,7 @@ import org.bukkit.inventory.meta.Damageable;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.function.Function;
@@ -33,6 +34,12 @@ public class Item extends MenuItem {
     private ItemMeta meta;
     private Material material;
 
+    /**
+     * The result of the last build. Null if any property has changed since.
+     */
+    private volatile ItemStack built;
+    private volatile long version;
+
     private List<Component> loreComponent;
     private List<String> loreString;
 
@@ -72,13 +79,43 @@ public class Item extends MenuItem {
         this.nameComponent = name;
     }
 
+    /**
+     * {@inheritDoc}
+     * The result is cached until a property of this item changes, so repeated builds only cost a clone.
+     */
     @Override
-    public ItemStack build() {
+    public synchronized ItemStack build() {
+        if (built == null) {
+            built = render();
+        }
+        return built.clone();
+    }
+
+    /**
+     * Marks the cached result of {@link #build()} as outdated.
+     * Only needed when the {@link ItemMeta} provided in {@link #meta(ItemMeta)} is changed afterwards.
+     *
+     * @return the instance of this class
+     */
+    public Item invalidate() {
+        changed();
+        return this;
+    }
+
+    /**
+     * Drops the cached result. Takes the lock of {@link #build()}, so a build that is running
+     * with the old properties can't store its result after this.
+     */
+    private synchronized void changed() {
+        this.built = null;
+        this.version++;
+    }
+
+    private ItemStack render() {
         ItemStack item = new ItemStack(material, amount);
 
-        if (meta == null) {
-            meta = Bukkit.getItemFactory().getItemMeta(item.getType());
-        }
+        // the provided meta may be shared with clones of this item, so only a copy is changed
+        ItemMeta meta = this.meta == null ? Bukkit.getItemFactory().getItemMeta(item.getType()) : this.meta.clone();
         if (meta == null) {
             return item;
         }
@@ -88,10 +125,10 @@ public class Item extends MenuItem {
             meta.addItemFlags(ItemFlag.HIDE_ENCHANTS);
         }
 
-        meta.displayName(nameComponent == null ? MiniMessage.miniMessage().deserialize(nameString) : nameComponent);
-        meta.lore(loreComponent == null ? loreString.stream()
-                .map(s -> MiniMessage.miniMessage().deserialize(s))
-                .toList() : loreComponent);
+        meta.displayName(nameComponent == null ? ComponentCache.parse(nameString) : nameComponent);
+        if (loreComponent != null || loreString != null) {
+            meta.lore(getLore());
+        }
 
         if (Version.isHigherOrEqual(Version.V1_13)) {
             ((Damageable) meta).setDamage(Math.abs(durability - material.getMaxDurability()));
@@ -115,9 +152,10 @@ public class Item extends MenuItem {
         item.glowing = glowing;
         item.durability = durability;
         item.unbreakable = unbreakable;
-        item.meta = meta;
+        item.meta = meta == null ? null : meta.clone();
         item.loreComponent = loreComponent;
         item.loreString = loreString;
+        item.built = built;
 
         return item;
     }
@@ -127,6 +165,25 @@ public class Item extends MenuItem {
         return false;
     }
 
+    /**
+     * {@inheritDoc}
+     * Changes with every property that is set, and with {@link #invalidate()}.
+     */
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Builds only change a copy of the meta, so clones of an item can be built at the same time.
+     * The properties and the meta given in {@link #meta(ItemMeta)} must not be changed while an item is being built.
+     */
+    @Override
+    public boolean isAsyncSafe() {
+        return true;
+    }
+
     /**
      * Set unbreakable
      *
@@ -134,6 +191,7 @@ public class Item extends MenuItem {
      */
     public Item unbreakable() {
         this.unbreakable = true;
+        changed();
         return this;
     }
 
@@ -144,6 +202,7 @@ public class Item extends MenuItem {
      */
     public Item glowing() {
         this.glowing = true;
+        changed();
         return this;
     }
 
@@ -155,6 +214,7 @@ public class Item extends MenuItem {
     public Item glowing(boolean predicate) {
         if (predicate) {
             this.glowing = true;
+            changed();
         }
         return this;
     }
@@ -169,6 +229,7 @@ public class Item extends MenuItem {
      */
     public Item name(Component name) {
         this.nameComponent = name;
+        changed();
         return this;
     }
 
@@ -182,6 +243,7 @@ public class Item extends MenuItem {
      */
     public Item name(String name) {
         this.nameString = name;
+        changed();
         return this;
     }
 
@@ -195,6 +257,7 @@ public class Item extends MenuItem {
      */
     public Item meta(ItemMeta meta) {
         this.meta = meta;
+        changed();
         return this;
     }
 
@@ -205,6 +268,7 @@ public class Item extends MenuItem {
      */
     public Item durability(int durability) {
         this.durability = durability;
+        changed();
         return this;
     }
 
@@ -218,6 +282,7 @@ public class Item extends MenuItem {
      */
     public Item amount(int amount) {
         this.amount = amount;
+        changed();
         return this;
     }
 
@@ -231,6 +296,7 @@ public class Item extends MenuItem {
      */
     public Item material(Material material) {
         this.material = material;
+        changed();
         return this;
     }
 
@@ -247,8 +313,8 @@ public class Item extends MenuItem {
             return this;
         }
 
-        this.loreComponent.clear();
-        this.loreComponent.addAll(lore);
+        this.loreComponent = new ArrayList<>(lore);
+        changed();
         return this;
     }
 
@@ -275,6 +341,7 @@ public class Item extends MenuItem {
      */
     public Item modifyLore(Function<Component, Component> function) {
         this.loreComponent = loreComponent.stream().map(function).toList();
+        changed();
         return this;
     }
 
@@ -291,8 +358,8 @@ public class Item extends MenuItem {
             return this;
         }
 
-        this.loreString.clear();
-        this.loreString.addAll(lore);
+        this.loreString = new ArrayList<>(lore);
+        changed();
         return this;
     }
 
@@ -319,6 +386,7 @@ public class Item extends MenuItem {
      */
     public Item modifyStringLore(Function<String, String> function) {
         this.loreString = loreString.stream().map(function).toList();
+        changed();
         return this;
     }
 
@@ -333,6 +401,7 @@ public class Item extends MenuItem {
      */
     public Item modifyName(Function<Component, Component> function) {
         nameComponent = function.apply(nameComponent);
+        changed();
         return this;
     }
 
@@ -347,6 +416,7 @@ public class Item extends MenuItem {
      */
     public Item modifyStringName(Function<String, String> function) {
         nameString = function.apply(nameString);
+        changed();
         return this;
     }
 
@@ -365,9 +435,12 @@ public class Item extends MenuItem {
      * @return the lore
      */
     public List<Component> getLore() {
+        if (loreComponent == null && loreString == null) {
+            return new ArrayList<>();
+        }
         return loreComponent == null ?
                 loreString.stream()
-                        .map(s -> MiniMessage.miniMessage().deserialize(s))
+                        .map(ComponentCache::parse)
                         .toList()
                 : loreComponent;
     }
@@ -387,7 +460,7 @@ public class Item extends MenuItem {
      * @return the name
      */
     public Component getName() {
-        return nameComponent == null ? MiniMessage.miniMessage().deserialize(nameString) : nameComponent;
+        return nameComponent == null ? ComponentCache.parse(nameString) : nameComponent;
     }
 
     /**
@@ -1,5 +1,6 @@
 package dev.efnilite.gui.item;
 
+import dev.efnilite.gui.ClickHandle;
 import dev.efnilite.gui.Menu;
 import dev.efnilite.gui.MenuClickEvent;
 import org.bukkit.event.inventory.ClickType;
@@ -8,6 +9,7 @@ import org.bukkit.inventory.ItemStack;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 /**
@@ -25,6 +27,7 @@ public abstract class MenuItem {
     };
 
     protected Map<ClickType, Consumer<MenuClickEvent>> clickFunctions = new HashMap<>();
+    protected Map<ClickType, BiConsumer<MenuClickEvent, ClickHandle>> asyncClickFunctions = new HashMap<>();
 
     /**
      * Set the function on click
@@ -47,12 +50,46 @@ public abstract class MenuItem {
         return this;
     }
 
+    /**
+     * Set the function on click, which runs on a virtual thread instead of the main thread.
+     * Use this for functions that wait, like database queries. Functions of the same player run one at a time,
+     * in the order of the clicks. Functions must not change the menu or access the player directly,
+     * but schedule these changes with {@link ClickHandle#sync(Runnable)}.
+     * The click event has already been handled when the function runs, so it can't be cancelled anymore.
+     * If the player has too many functions in flight, the click is ignored. See {@link dev.efnilite.gui.ClickExecutor}.
+     *
+     * @param   handler
+     *          The function, which receives the click and the handle to update the menu with
+     *
+     * @return the instance of this class
+     */
+    public MenuItem clickAsync(BiConsumer<MenuClickEvent, ClickHandle> handler, ClickType... clickType) {
+        if (clickType.length == 0) {
+            for (ClickType type : DEFAULT_TYPES) {
+                asyncClickFunctions.put(type, handler);
+            }
+        } else {
+            for (ClickType type : clickType) {
+                asyncClickFunctions.put(type, handler);
+            }
+        }
+        return this;
+    }
+
     public void handleClick(Menu menu, InventoryClickEvent event, ClickType clickType) {
         Consumer<MenuClickEvent> consumer = clickFunctions.get(clickType);
-        if (consumer == null)  {
+        BiConsumer<MenuClickEvent, ClickHandle> handler = asyncClickFunctions.get(clickType);
+        if (consumer == null && handler == null)  {
             return;
         }
-        consumer.accept(new MenuClickEvent(event.getSlot(), menu, this, event));
+
+        MenuClickEvent click = new MenuClickEvent(event.getSlot(), menu, this, event);
+        if (consumer != null) {
+            consumer.accept(click);
+        }
+        if (handler != null) {
+            Menu.getClickExecutor().submit(click, handler);
+        }
     }
 
     /**
@@ -62,6 +99,17 @@ public abstract class MenuItem {
      */
     public abstract ItemStack build();
 
+    /**
+     * Returns a number which changes whenever the result of {@link #build()} may change. Menus which show the same items
+     * again, like {@link dev.efnilite.gui.PagedMenu}, keep the built result until the version changes.
+     * By default -1, which means the result may change at any time, so it is never kept.
+     *
+     * @return the version, or -1 if it isn't tracked
+     */
+    public long getVersion() {
+        return -1;
+    }
+
     /**
      * Whether this item can be moved by the player
      *
@@ -69,4 +117,16 @@ public abstract class MenuItem {
      */
     public abstract boolean isMovable();
 
+    /**
+     * Whether {@link #build()} may be called off the main thread, for example by the {@link dev.efnilite.gui.BuildPipeline}.
+     * An async-safe item only creates an ItemStack from its own properties when building: it doesn't schedule tasks,
+     * change menus or access players, worlds or inventories. Its properties must not be changed while it's being built.
+     * By default false.
+     *
+     * @return true if this item can be built on any thread
+     */
+    public boolean isAsyncSafe() {
+        return false;
+    }
+
 }
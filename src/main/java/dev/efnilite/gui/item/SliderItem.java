@@ -92,8 +92,6 @@ public class SliderItem extends MenuItem {
         boolean update = function.test(new MenuClickEvent(event.getSlot(), menu, this, event));
 
         if (update) {
-            event.getInventory().setItem(event.getSlot(), items.get(currentTo).build());
-
             current = currentTo;
 
             menu.updateItem(event.getSlot());
@@ -2,15 +2,11 @@ package dev.efnilite.gui.item;
 
 import dev.efnilite.gui.Menu;
 import dev.efnilite.gui.MenuClickEvent;
-import dev.efnilite.gui.util.Task;
-import net.kyori.adventure.text.minimessage.MiniMessage;
+import dev.efnilite.gui.util.TimingWheel;
 import org.bukkit.Material;
-import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
-import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 
 /**
  * A MenuItem which only stays for a certain amount of ticks. This item is meant as a confirm option or to display items for a small amount of time.
@@ -19,9 +15,8 @@ import org.bukkit.scheduler.BukkitRunnable;
 public class TimedItem extends MenuItem {
 
     private int timeStay;
-    private Task task;
+    private TimingWheel.Timer timer;
     private MenuItem revertTo;
-    private final Player player;
     private final MenuItem item;
     private final MenuClickEvent event;
 
@@ -29,9 +24,8 @@ public class TimedItem extends MenuItem {
         this.item = item;
         this.revertTo = event.menu().getItem(event.slot());
         if (revertTo == null) {
-            revertTo = new Item(Material.AIR, MiniMessage.miniMessage().deserialize("<red> "));
+            revertTo = FillerItem.of(Material.AIR);
         }
-        this.player = event.getPlayer();
         this.event = event;
     }
 
@@ -50,24 +44,17 @@ public class TimedItem extends MenuItem {
 
     @Override
     public ItemStack build() {
-        BukkitRunnable runnable = new BukkitRunnable() {
-            @Override
-            public void run() {
-                Menu menu = event.menu();
-                InventoryView view = player.getOpenInventory();
-                if (view.title().equals(menu.getTitle())) {
-                    menu.item(event.slot(), revertTo);
-                    menu.updateItem(event.slot());
-                } else {
-                    cancel(); // prevent going on forever
-                }
-            }
-        };
+        Menu menu = event.menu();
+        Menu.Session session = menu.getSession();
+        int slot = event.slot();
 
-        task = Task.create(Menu.PLUGIN)
-                .delay(timeStay)
-                .execute(runnable);
-        task.run();
+        // only scheduled the first time this item is built in this slot
+        timer = menu.schedule(slot, this, timeStay, 0, () -> {
+            if (session != null && session.isActive() && menu.getItem(slot) == this) {
+                menu.item(slot, revertTo);
+                menu.updateItem(slot);
+            }
+        });
 
         return item.build();
     }
@@ -76,7 +63,9 @@ public class TimedItem extends MenuItem {
     public void handleClick(Menu menu, InventoryClickEvent event, ClickType clickType) {
         item.handleClick(menu, event, clickType);
 
-        task.cancelAndRunImmediately();
+        if (timer != null) {
+            timer.expire();
+        }
     }
 
     @Override
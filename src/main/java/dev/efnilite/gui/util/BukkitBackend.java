@@ -0,0 +1,44 @@
+package dev.efnilite.gui.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs tasks with the {@link BukkitScheduler}. Entities are ignored, since everything runs on the main thread.
+ *
+ * @author Efnilite
+ */
+final class BukkitBackend implements TaskBackend {
+
+    @Override
+    public @NotNull BukkitTask schedule(@NotNull Plugin plugin, @Nullable Entity entity, @NotNull Runnable runnable, int delay, int repeat, boolean async) {
+        BukkitScheduler scheduler = Bukkit.getScheduler();
+        if (async) { // async
+            if (repeat > 0) {
+                return scheduler.runTaskTimerAsynchronously(plugin, runnable, delay, repeat);
+            } else if (delay > 0) {
+                return scheduler.runTaskLaterAsynchronously(plugin, runnable, delay);
+            } else {
+                return scheduler.runTaskAsynchronously(plugin, runnable);
+            }
+        } else {
+            if (repeat > 0) {
+                return scheduler.runTaskTimer(plugin, runnable, delay, repeat);
+            } else if (delay > 0) {
+                return scheduler.runTaskLater(plugin, runnable, delay);
+            } else {
+                return scheduler.runTask(plugin, runnable);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return false;
+    }
+}
@@ -0,0 +1,157 @@
+package dev.efnilite.gui.util;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of deserialized MiniMessage strings, shared by all menus and items.
+ * When full, roughly the least recently used tenth of the entries is evicted in one sweep. Safe to use from any thread:
+ * hits don't take a lock, and only one thread sweeps at a time.
+ *
+ * @author Efnilite
+ */
+public final class ComponentCache {
+
+    /**
+     * The default maximum amount of cached components.
+     */
+    public static final int DEFAULT_SIZE = 4096;
+
+    private static volatile int maximumSize = DEFAULT_SIZE;
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final Map<String, Entry> cache = new ConcurrentHashMap<>(256);
+
+    /**
+     * Counts the insertions, and serves as the clock for recency. Hits only read it, so they don't contend on it.
+     */
+    private static final AtomicLong clock = new AtomicLong();
+    private static final AtomicBoolean evicting = new AtomicBoolean();
+
+    private ComponentCache() {
+
+    }
+
+    /**
+     * Deserializes a MiniMessage string, or returns the cached result if this string has been deserialized before.
+     *
+     * @param   string
+     *          The MiniMessage string
+     *
+     * @return the deserialized component
+     */
+    public static @NotNull Component parse(@NotNull String string) {
+        Entry entry = cache.get(string);
+        if (entry != null) {
+            long now = clock.get();
+            if (entry.used != now) { // skip the write if nothing has been inserted since the last hit
+                entry.used = now;
+            }
+            hits.increment();
+            return entry.component;
+        }
+
+        misses.increment();
+        Entry parsed = new Entry(MiniMessage.miniMessage().deserialize(string), clock.incrementAndGet());
+        Entry existing = cache.putIfAbsent(string, parsed);
+        if (existing != null) {
+            return existing.component;
+        }
+
+        if (cache.size() > maximumSize && evicting.compareAndSet(false, true)) {
+            try {
+                evict();
+            } finally {
+                evicting.set(false);
+            }
+        }
+        return parsed.component;
+    }
+
+    /**
+     * Removes the least recently used entries until the cache is at 90% of its maximum size.
+     * Sorting the times on every sweep is fine, since a sweep only happens after a tenth of the entries has been replaced.
+     */
+    private static void evict() {
+        int target = maximumSize - maximumSize / 10;
+        long[] used = cache.values().stream().mapToLong(entry -> entry.used).sorted().toArray();
+        int excess = used.length - target;
+        if (excess <= 0) {
+            return;
+        }
+
+        long threshold = used[excess - 1];
+        Iterator<Entry> iterator = cache.values().iterator();
+        while (iterator.hasNext() && cache.size() > target) {
+            if (iterator.next().used <= threshold) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Sets the maximum amount of cached components. Excess entries are evicted on the next insertion.
+     *
+     * @param   size
+     *          The maximum size
+     */
+    public static void setMaximumSize(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be at least 1");
+        }
+        maximumSize = size;
+    }
+
+    /**
+     * Removes all cached components. Does not reset the counters.
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Returns the amount of cached components.
+     *
+     * @return the amount of cached components
+     */
+    public static int size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the amount of times a string was found in the cache.
+     *
+     * @return the amount of hits
+     */
+    public static long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the amount of times a string had to be deserialized.
+     *
+     * @return the amount of misses
+     */
+    public static long getMisses() {
+        return misses.sum();
+    }
+
+    private static final class Entry {
+
+        private final Component component;
+        private volatile long used;
+
+        private Entry(Component component, long used) {
+            this.component = component;
+            this.used = used;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package dev.efnilite.gui.util;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs tasks with the schedulers of Folia, which are accessed with reflection so this library can still be compiled
+ * against the Paper API. Tasks bound to an entity run on the entity scheduler, which follows the entity across regions.
+ * Other tasks run on the global region, or on the async scheduler.
+ *
+ * @author Efnilite
+ */
+final class FoliaBackend implements TaskBackend {
+
+    private static final String PACKAGE = "io.papermc.paper.threadedregions.scheduler.";
+
+    private final Method getGlobalRegionScheduler;
+    private final Method getAsyncScheduler;
+    private final Method getEntityScheduler;
+
+    private final Method globalRun;
+    private final Method globalDelayed;
+    private final Method globalRate;
+    private final Method entityRun;
+    private final Method entityDelayed;
+    private final Method entityRate;
+    private final Method asyncRun;
+    private final Method asyncDelayed;
+    private final Method asyncRate;
+
+    private final Method cancel;
+    private final Method isCancelled;
+
+    FoliaBackend() {
+        try {
+            Class<?> global = Class.forName(PACKAGE + "GlobalRegionScheduler");
+            Class<?> async = Class.forName(PACKAGE + "AsyncScheduler");
+            Class<?> entity = Class.forName(PACKAGE + "EntityScheduler");
+            Class<?> task = Class.forName(PACKAGE + "ScheduledTask");
+
+            getGlobalRegionScheduler = Bukkit.class.getMethod("getGlobalRegionScheduler");
+            getAsyncScheduler = Bukkit.class.getMethod("getAsyncScheduler");
+            getEntityScheduler = Entity.class.getMethod("getScheduler");
+
+            globalRun = global.getMethod("run", Plugin.class, Consumer.class);
+            globalDelayed = global.getMethod("runDelayed", Plugin.class, Consumer.class, long.class);
+            globalRate = global.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class);
+            entityRun = entity.getMethod("run", Plugin.class, Consumer.class, Runnable.class);
+            entityDelayed = entity.getMethod("runDelayed", Plugin.class, Consumer.class, Runnable.class, long.class);
+            entityRate = entity.getMethod("runAtFixedRate", Plugin.class, Consumer.class, Runnable.class, long.class, long.class);
+            asyncRun = async.getMethod("runNow", Plugin.class, Consumer.class);
+            asyncDelayed = async.getMethod("runDelayed", Plugin.class, Consumer.class, long.class, TimeUnit.class);
+            asyncRate = async.getMethod("runAtFixedRate", Plugin.class, Consumer.class, long.class, long.class, TimeUnit.class);
+
+            cancel = task.getMethod("cancel");
+            isCancelled = task.getMethod("isCancelled");
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Unsupported version of Folia", ex);
+        }
+    }
+
+    @Override
+    public @NotNull BukkitTask schedule(@NotNull Plugin plugin, @Nullable Entity entity, @NotNull Runnable runnable, int delay, int repeat, boolean async) {
+        Consumer<Object> consumer = scheduled -> runnable.run();
+        long first = Math.max(1, delay); // Folia requires delays of at least 1 tick
+
+        Object task;
+        if (async) {
+            Object scheduler = invoke(getAsyncScheduler, null);
+            if (repeat > 0) {
+                task = invoke(asyncRate, scheduler, plugin, consumer, first * 50, repeat * 50L, TimeUnit.MILLISECONDS);
+            } else if (delay > 0) {
+                task = invoke(asyncDelayed, scheduler, plugin, consumer, delay * 50L, TimeUnit.MILLISECONDS);
+            } else {
+                task = invoke(asyncRun, scheduler, plugin, consumer);
+            }
+        } else if (entity != null) {
+            Object scheduler = invoke(getEntityScheduler, entity);
+            if (repeat > 0) {
+                task = invoke(entityRate, scheduler, plugin, consumer, null, first, (long) repeat);
+            } else if (delay > 0) {
+                task = invoke(entityDelayed, scheduler, plugin, consumer, null, (long) delay);
+            } else {
+                task = invoke(entityRun, scheduler, plugin, consumer, null);
+            }
+        } else {
+            Object scheduler = invoke(getGlobalRegionScheduler, null);
+            if (repeat > 0) {
+                task = invoke(globalRate, scheduler, plugin, consumer, first, (long) repeat);
+            } else if (delay > 0) {
+                task = invoke(globalDelayed, scheduler, plugin, consumer, (long) delay);
+            } else {
+                task = invoke(globalRun, scheduler, plugin, consumer);
+            }
+        }
+        return new ScheduledTaskAdapter(plugin, task, !async);
+    }
+
+    @Override
+    public boolean isRegionized() {
+        return true;
+    }
+
+    private static Object invoke(Method method, Object instance, Object... args) {
+        try {
+            return method.invoke(instance, args);
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Exposes a Folia ScheduledTask as a {@link BukkitTask}, so menus can bind and cancel it like any other task.
+     */
+    private final class ScheduledTaskAdapter implements BukkitTask {
+
+        private final Plugin plugin;
+        private final Object task;
+        private final boolean sync;
+
+        /**
+         * @param   task
+         *          The scheduled task, or null if the entity was removed before it could be scheduled.
+         */
+        private ScheduledTaskAdapter(Plugin plugin, @Nullable Object task, boolean sync) {
+            this.plugin = plugin;
+            this.task = task;
+            this.sync = sync;
+        }
+
+        @Override
+        public int getTaskId() {
+            return -1; // Folia tasks have no id
+        }
+
+        @Override
+        public @NotNull Plugin getOwner() {
+            return plugin;
+        }
+
+        @Override
+        public boolean isSync() {
+            return sync;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return task == null || (boolean) invoke(isCancelled, task);
+        }
+
+        @Override
+        public void cancel() {
+            if (task != null) {
+                invoke(cancel, task);
+            }
+        }
+    }
+}
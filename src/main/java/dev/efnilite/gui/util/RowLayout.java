@@ -0,0 +1,141 @@
+package dev.efnilite.gui.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Describes how the items in a row are arranged. For every possible occupancy of a row,
+ * the moves which arrange it are computed once when the layout is created,
+ * so arranging a row is a single table lookup.
+ *
+ * @author Efnilite
+ */
+public final class RowLayout {
+
+    private static final int[] NONE = new int[0];
+
+    /**
+     * Spreads the items over the row, keeping the middle slot free if the amount is even.
+     */
+    public static final RowLayout EVEN = new RowLayout(RowLayout::getEvenlyDistributedColumns);
+
+    /**
+     * Moves all items to the left side of the row.
+     */
+    public static final RowLayout LEFT = new RowLayout(amount -> getFromTo(0, amount));
+
+    /**
+     * Moves all items to the right side of the row.
+     */
+    public static final RowLayout RIGHT = new RowLayout(amount -> getFromTo(9 - amount, 9));
+
+    /**
+     * Moves all items next to each other in the middle of the row.
+     */
+    public static final RowLayout CENTER = new RowLayout(amount -> getFromTo((9 - amount) / 2, (9 - amount) / 2 + amount));
+
+    /**
+     * For every 9-bit row occupancy mask, the (from, to) column pairs in the order in which they can be moved in place.
+     */
+    private final int[][] moves = new int[512][];
+
+    private RowLayout(IntFunction<int[]> columns) {
+        for (int mask = 0; mask < 512; mask++) {
+            moves[mask] = compile(mask, columns.apply(Integer.bitCount(mask)));
+        }
+    }
+
+    /**
+     * Creates a layout from a pattern of 9 characters, where 'x' marks a column that may hold an item.
+     * Items are placed in the marked columns from left to right. Rows with more items than marked columns are left as-is.
+     *
+     * @param   pattern
+     *          The pattern, for example "x-x-x-x-x"
+     *
+     * @return the layout
+     */
+    public static RowLayout pattern(@NotNull String pattern) {
+        if (pattern.length() != 9) {
+            throw new IllegalArgumentException("Pattern must be 9 characters long");
+        }
+
+        int[] marked = new int[9];
+        int amount = 0;
+        for (int column = 0; column < 9; column++) {
+            if (pattern.charAt(column) == 'x') {
+                marked[amount++] = column;
+            }
+        }
+
+        int available = amount;
+        return new RowLayout(count -> count > available ? null : Arrays.copyOf(marked, count));
+    }
+
+    /**
+     * Returns the moves which arrange a row.
+     *
+     * @param   mask
+     *          The occupancy of the row, where bit n is set if column n has an item
+     *
+     * @return pairs of (from, to) columns. Moving these in order never overwrites an item that has yet to be moved.
+     */
+    public int[] getMoves(int mask) {
+        return moves[mask & 0x1FF];
+    }
+
+    // targets must be ascending, so items keep their order
+    private static int[] compile(int mask, int[] targets) {
+        if (targets == null) {
+            return NONE;
+        }
+
+        int[] sources = new int[targets.length];
+        int amount = 0;
+        for (int column = 0; column < 9; column++) {
+            if ((mask & (1 << column)) != 0) {
+                sources[amount++] = column;
+            }
+        }
+
+        int[] result = new int[amount * 2];
+        int length = 0;
+        for (int i = amount - 1; i >= 0; i--) { // items moving right, from the right
+            if (targets[i] > sources[i]) {
+                result[length++] = sources[i];
+                result[length++] = targets[i];
+            }
+        }
+        for (int i = 0; i < amount; i++) { // items moving left, from the left
+            if (targets[i] < sources[i]) {
+                result[length++] = sources[i];
+                result[length++] = targets[i];
+            }
+        }
+        return length == 0 ? NONE : Arrays.copyOf(result, length);
+    }
+
+    private static int[] getFromTo(int from, int to) {
+        int[] result = new int[to - from];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = from + i;
+        }
+        return result;
+    }
+
+    private static int[] getEvenlyDistributedColumns(int amountInRow) {
+        return switch (amountInRow) {
+            case 0 -> new int[0];
+            case 1 -> new int[] { 4 };
+            case 2 -> new int[] { 3, 5 };
+            case 3 -> new int[] { 3, 4, 5 };
+            case 4 -> new int[] { 2, 3, 5, 6 };
+            case 5 -> new int[] { 2, 3, 4, 5, 6 };
+            case 6 -> new int[] { 1, 2, 3, 5, 6, 7 };
+            case 7 -> new int[] { 1, 2, 3, 4, 5, 6, 7 };
+            case 8 -> new int[] { 0, 1, 2, 3, 5, 6, 7, 8 };
+            default -> new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8 };
+        };
+    }
+}
@@ -1,18 +1,23 @@
 package dev.efnilite.gui.util;
 
-import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitScheduler;
 import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
- * Class for easily constructing tasks.
+ * Class for easily constructing tasks. Tasks are scheduled by the {@link TaskBackend} of the server:
+ * on regionized servers, tasks which are bound to an entity with {@link #entity(Entity)} run on the region
+ * of that entity, and other tasks on the global region.
  *
  * @author Efnilite
  */
 public class Task {
 
+    private static TaskBackend backend = TaskBackend.detect();
+
     private int delay;
     private int repeat;
     private boolean async;
@@ -20,6 +25,7 @@ public class Task {
     private Runnable defaultRunnable;
     private BukkitTask task;
     private BukkitRunnable bukkitRunnable;
+    private Entity entity;
 
     public Task(Plugin plugin) {
         this.plugin = plugin;
@@ -40,6 +46,34 @@ public class Task {
         return new Task(plugin);
     }
 
+    /**
+     * Sets the backend which schedules all tasks.
+     *
+     * @param   backend
+     *          The backend
+     */
+    public static void backend(@NotNull TaskBackend backend) {
+        Task.backend = backend;
+    }
+
+    /**
+     * Returns the backend which schedules all tasks.
+     *
+     * @return the backend
+     */
+    public static TaskBackend getBackend() {
+        return backend;
+    }
+
+    /**
+     * Returns whether tasks run on regions instead of the main thread, like on Folia.
+     *
+     * @return true if the server is regionized
+     */
+    public static boolean isRegionized() {
+        return backend.isRegionized();
+    }
+
     /**
      * Specifies which Java Runnable should be executed. This supports lambdas.
      *
@@ -66,6 +100,20 @@ public class Task {
         return this;
     }
 
+    /**
+     * Binds this task to an entity. On regionized servers, the task runs on the region the entity is in,
+     * and doesn't run anymore once the entity has been removed. Otherwise, this has no effect.
+     *
+     * @param   entity
+     *          The entity, or null to run this task on the global region.
+     *
+     * @return the instance of this class
+     */
+    public Task entity(@Nullable Entity entity) {
+        this.entity = entity;
+        return this;
+    }
+
     /**
      * Whether this task should run async
      *
@@ -127,12 +175,13 @@ public class Task {
     }
 
     /**
-     * Runs this task
+     * Runs this task. On regionized servers, a {@link BukkitRunnable} is run as a plain Runnable,
+     * so its own scheduling methods, like {@link BukkitRunnable#cancel()}, can't be used.
      *
      * @return the BukkitTask instance returned from running this task
      */
     public BukkitTask run() {
-        if (bukkitRunnable != null) {
+        if (bukkitRunnable != null && !backend.isRegionized()) {
             if (async) { // async
                 if (repeat > 0) {
                     task = bukkitRunnable.runTaskTimerAsynchronously(plugin, delay, repeat);
@@ -150,28 +199,12 @@ public class Task {
                     task = bukkitRunnable.runTask(plugin);
                 }
             }
-        } else if (defaultRunnable != null) {
-            BukkitScheduler scheduler = Bukkit.getScheduler();
-            if (async) { // async
-                if (repeat > 0) {
-                    task = scheduler.runTaskTimerAsynchronously(plugin, defaultRunnable, delay, repeat);
-                } else if (delay > 0) {
-                    task = scheduler.runTaskLaterAsynchronously(plugin, defaultRunnable, delay);
-                } else {
-                    task = scheduler.runTaskAsynchronously(plugin, defaultRunnable);
-                }
-            } else {
-                if (repeat > 0) {
-                    task = scheduler.runTaskTimer(plugin, defaultRunnable, delay, repeat);
-                } else if (delay > 0) {
-                    task = scheduler.runTaskLater(plugin, defaultRunnable, delay);
-                } else {
-                    task = scheduler.runTask(plugin, defaultRunnable);
-                }
-            }
+        } else if (bukkitRunnable != null || defaultRunnable != null) {
+            Runnable runnable = bukkitRunnable != null ? bukkitRunnable : defaultRunnable;
+            task = backend.schedule(plugin, entity, runnable, delay, repeat, async);
         } else {
             throw new IllegalStateException("Both runnable types are null!");
         }
         return task;
     }
-}
\ No newline at end of file
+}
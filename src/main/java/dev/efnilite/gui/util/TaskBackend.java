@@ -0,0 +1,63 @@
+package dev.efnilite.gui.util;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The scheduler which runs {@link Task}s. On regionized servers such as Folia, tasks run on the region
+ * of the entity they are bound to, otherwise on the main thread.
+ *
+ * @author Efnilite
+ */
+public interface TaskBackend {
+
+    /**
+     * Schedules a task.
+     *
+     * @param   plugin
+     *          The plugin which owns the task
+     *
+     * @param   entity
+     *          The entity the task is bound to, or null to run it on the main thread or global region.
+     *
+     * @param   runnable
+     *          The task
+     *
+     * @param   delay
+     *          The delay in ticks
+     *
+     * @param   repeat
+     *          The interval in ticks, or 0 to only run the task once.
+     *
+     * @param   async
+     *          Whether the task runs off the main thread
+     *
+     * @return the scheduled task
+     */
+    @NotNull
+    BukkitTask schedule(@NotNull Plugin plugin, @Nullable Entity entity, @NotNull Runnable runnable, int delay, int repeat, boolean async);
+
+    /**
+     * Returns whether this backend schedules tasks on regions instead of the main thread.
+     *
+     * @return true if regionized
+     */
+    boolean isRegionized();
+
+    /**
+     * Returns the backend for the server this is running on.
+     *
+     * @return the Folia backend if the server is regionized, otherwise the Bukkit backend.
+     */
+    static TaskBackend detect() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return new FoliaBackend();
+        } catch (ClassNotFoundException ex) {
+            return new BukkitBackend();
+        }
+    }
+}
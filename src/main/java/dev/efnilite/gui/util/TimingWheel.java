@@ -0,0 +1,208 @@
+package dev.efnilite.gui.util;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A hierarchical timing wheel, which runs actions after a delay in ticks.
+ * Scheduling and cancelling are O(1), and a tick only visits the timers that are due,
+ * plus the timers that move down a level once every 64 ticks per level.
+ * Timers may be scheduled and cancelled from any thread. Actions are run on the thread that calls {@link #tick()}.
+ *
+ * @author Efnilite
+ */
+public final class TimingWheel {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int LEVELS = 4;
+
+    /**
+     * The maximum delay and period, about 9 days at 20 ticks per second. Longer delays are shortened to this.
+     */
+    public static final long MAX_DELAY = (1L << (BITS * LEVELS)) - 1;
+
+    private final Timer[][] buckets = new Timer[LEVELS][SLOTS];
+    private long now;
+    private int size;
+
+    /**
+     * Schedules an action.
+     *
+     * @param   delay
+     *          The amount of ticks until the action is run, at least 1.
+     *
+     * @param   period
+     *          The amount of ticks between runs, or 0 to only run the action once.
+     *
+     * @param   action
+     *          The action
+     *
+     * @return the timer, which can be used to cancel it
+     */
+    public synchronized Timer schedule(long delay, long period, @NotNull Runnable action) {
+        if (period < 0) {
+            throw new IllegalArgumentException("Period cannot be under 0");
+        }
+
+        Timer timer = new Timer(this, Math.min(period, MAX_DELAY), action);
+        timer.deadline = now + Math.max(1, Math.min(delay, MAX_DELAY));
+        place(timer);
+        return timer;
+    }
+
+    /**
+     * Advances this wheel by one tick, and runs the actions that are due.
+     * If actions throw, the other actions are still run and the first exception is thrown afterwards.
+     */
+    public synchronized void tick() {
+        now++;
+
+        int highest = 0; // cascade from the highest level that has wrapped, so lower levels receive its timers first
+        while (highest < LEVELS - 1 && (now & ((1L << (BITS * (highest + 1))) - 1)) == 0) {
+            highest++;
+        }
+        for (int level = highest; level > 0; level--) {
+            int index = (int) ((now >>> (BITS * level)) & (SLOTS - 1));
+            Timer timer;
+            while ((timer = buckets[level][index]) != null) {
+                unlink(timer);
+                place(timer);
+            }
+        }
+
+        RuntimeException error = null;
+        int index = (int) (now & (SLOTS - 1));
+        Timer timer;
+        while ((timer = buckets[0][index]) != null) {
+            unlink(timer);
+            if (timer.period > 0) {
+                timer.deadline = now + timer.period;
+                place(timer);
+            }
+
+            try {
+                timer.action.run();
+            } catch (RuntimeException ex) {
+                if (error == null) {
+                    error = ex;
+                } else {
+                    error.addSuppressed(ex);
+                }
+            }
+        }
+
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Returns the amount of scheduled timers.
+     *
+     * @return the amount of timers
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the amount of ticks this wheel has advanced.
+     *
+     * @return the current tick
+     */
+    public synchronized long getTick() {
+        return now;
+    }
+
+    private void place(Timer timer) {
+        long remaining = Math.max(0, timer.deadline - now);
+        int level = 0;
+        while (level < LEVELS - 1 && remaining >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+
+        int index = (int) ((Math.max(timer.deadline, now) >>> (BITS * level)) & (SLOTS - 1));
+        timer.level = level;
+        timer.index = index;
+        timer.prev = null;
+        timer.next = buckets[level][index];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        buckets[level][index] = timer;
+        timer.scheduled = true;
+        size++;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.prev == null) {
+            buckets[timer.level][timer.index] = timer.next;
+        } else {
+            timer.prev.next = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.scheduled = false;
+        size--;
+    }
+
+    /**
+     * An action that has been scheduled in a {@link TimingWheel}.
+     */
+    public static final class Timer {
+
+        private final TimingWheel wheel;
+        private final long period;
+        private final Runnable action;
+        private long deadline;
+        private int level;
+        private int index;
+        private boolean scheduled;
+        private Timer prev;
+        private Timer next;
+
+        private Timer(TimingWheel wheel, long period, Runnable action) {
+            this.wheel = wheel;
+            this.period = period;
+            this.action = action;
+        }
+
+        /**
+         * Cancels this timer. Does nothing if it has already been cancelled or run for the last time.
+         */
+        public void cancel() {
+            synchronized (wheel) {
+                if (scheduled) {
+                    wheel.unlink(this);
+                }
+            }
+        }
+
+        /**
+         * Cancels this timer and runs its action immediately, if it was still scheduled.
+         */
+        public void expire() {
+            synchronized (wheel) {
+                if (!scheduled) {
+                    return;
+                }
+                wheel.unlink(this);
+            }
+            action.run();
+        }
+
+        /**
+         * Returns whether this timer will still run.
+         *
+         * @return true if this timer is scheduled
+         */
+        public boolean isScheduled() {
+            synchronized (wheel) {
+                return scheduled;
+            }
+        }
+    }
+}
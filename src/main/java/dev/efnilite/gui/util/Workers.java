@@ -0,0 +1,70 @@
+package dev.efnilite.gui.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pool of worker threads this library uses for work off the main thread.
+ *
+ * @author Efnilite
+ */
+public class Workers {
+
+    private static ExecutorService executor;
+
+    /**
+     * Returns the worker pool, creating it if necessary.
+     * The pool has half as many threads as there are processors, with a minimum of 1.
+     *
+     * @return the worker pool
+     */
+    public static synchronized ExecutorService get() {
+        if (executor == null || executor.isShutdown()) {
+            AtomicInteger count = new AtomicInteger();
+
+            executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+                Thread thread = new Thread(runnable, "GUI Worker #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Creates an executor which runs every task on a new virtual thread, for work that mostly waits, like queries.
+     * Virtual threads are only available from Java 21, so on older versions this returns a pool of daemon threads
+     * which are reused instead.
+     *
+     * @param   name
+     *          The name of the threads, if virtual threads aren't available
+     *
+     * @return the executor
+     */
+    public static ExecutorService newVirtualExecutor(String name) {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException ex) { // not available, or a preview feature that isn't enabled
+            AtomicInteger count = new AtomicInteger();
+
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, name + " #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Stops the worker pool. Queued work is discarded.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package dev.efnilite.gui.util.collections;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * A table which maps inventory slots to values, backed by an array and a 64-bit occupancy mask.
+ * Slots are iterated in ascending order without boxing or allocating:
+ *
+ * <pre>
+ * for (int slot = table.next(0); slot != -1; slot = table.next(slot + 1)) {
+ *     T value = table.get(slot);
+ * }
+ * </pre>
+ *
+ * @param   <T>
+ *          The type of value stored in the slots.
+ *
+ * @author Efnilite
+ */
+public final class SlotTable<T> {
+
+    /**
+     * The amount of slots in the largest inventory, 6 rows of 9.
+     */
+    public static final int SIZE = 54;
+
+    private long mask;
+    private Object[] values;
+    private boolean shared;
+    private Map<Integer, T> view;
+
+    public SlotTable() {
+        this.values = new Object[SIZE];
+    }
+
+    private SlotTable(SlotTable<T> other) {
+        this.values = other.values;
+        this.mask = other.mask;
+        this.shared = true;
+        other.shared = true;
+    }
+
+    /**
+     * Returns a copy of this table. The copy shares its storage with this table until either of the two is changed.
+     *
+     * @return a copy of this table
+     */
+    public SlotTable<T> copy() {
+        return new SlotTable<>(this);
+    }
+
+    /**
+     * Returns the value in a slot.
+     *
+     * @param   slot
+     *          The slot
+     *
+     * @return the value, or null if the slot is empty or not in the table.
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable T get(int slot) {
+        if (slot < 0 || slot >= SIZE) {
+            return null;
+        }
+        return (T) values[slot];
+    }
+
+    /**
+     * Sets the value of a slot.
+     *
+     * @param   slot
+     *          The slot
+     *
+     * @param   value
+     *          The value. If this is null, the slot will be emptied.
+     *
+     * @return the previous value in this slot, or null if it was empty.
+     */
+    public @Nullable T put(int slot, @Nullable T value) {
+        if (slot < 0 || slot >= SIZE) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " is not in the table");
+        }
+
+        T previous = get(slot);
+        own();
+        values[slot] = value;
+        if (value == null) {
+            mask &= ~(1L << slot);
+        } else {
+            mask |= 1L << slot;
+        }
+        return previous;
+    }
+
+    /**
+     * Empties a slot.
+     *
+     * @param   slot
+     *          The slot
+     *
+     * @return the previous value in this slot, or null if it was empty.
+     */
+    public @Nullable T remove(int slot) {
+        if (slot < 0 || slot >= SIZE) {
+            return null;
+        }
+        return put(slot, null);
+    }
+
+    /**
+     * Returns whether a slot has a value.
+     *
+     * @param   slot
+     *          The slot
+     *
+     * @return true if the slot has a value, false if not.
+     */
+    public boolean contains(int slot) {
+        return slot >= 0 && slot < SIZE && (mask & (1L << slot)) != 0;
+    }
+
+    /**
+     * Returns the first occupied slot from a given slot.
+     *
+     * @param   from
+     *          The slot to start searching from (inclusive)
+     *
+     * @return the first occupied slot at or after from, or -1 if there is none.
+     */
+    public int next(int from) {
+        if (from >= SIZE) {
+            return -1;
+        }
+        long remaining = mask & (-1L << Math.max(from, 0));
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
+    }
+
+    /**
+     * Returns the amount of occupied slots in a range.
+     *
+     * @param   from
+     *          The first slot (inclusive)
+     *
+     * @param   to
+     *          The last slot (exclusive)
+     *
+     * @return the amount of occupied slots between from and to
+     */
+    public int count(int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        return Long.bitCount(mask & range(from, to));
+    }
+
+    /**
+     * Sets a value in every empty slot below size.
+     *
+     * @param   value
+     *          The value
+     *
+     * @param   size
+     *          The amount of slots to fill, starting from slot 0
+     */
+    public void fill(@NotNull T value, int size) {
+        long empty = ~mask & range(0, Math.min(size, SIZE));
+        if (empty != 0) {
+            own();
+        }
+        while (empty != 0) {
+            int slot = Long.numberOfTrailingZeros(empty);
+            values[slot] = value;
+            empty &= empty - 1;
+        }
+        mask |= range(0, Math.min(size, SIZE));
+    }
+
+    /**
+     * Empties every slot.
+     */
+    public void clear() {
+        if (shared) {
+            values = new Object[SIZE];
+            shared = false;
+        } else {
+            Arrays.fill(values, null);
+        }
+        mask = 0;
+    }
+
+    /**
+     * Returns the occupancy mask, where bit n is set if slot n has a value.
+     *
+     * @return the occupancy mask
+     */
+    public long mask() {
+        return mask;
+    }
+
+    /**
+     * Returns the amount of occupied slots.
+     *
+     * @return the amount of occupied slots
+     */
+    public int size() {
+        return Long.bitCount(mask);
+    }
+
+    /**
+     * Returns whether this table has no values.
+     *
+     * @return true if every slot is empty, false if not.
+     */
+    public boolean isEmpty() {
+        return mask == 0;
+    }
+
+    /**
+     * Returns a {@link Map} view of this table. Changes to the view are reflected in this table and vice versa.
+     * Iteration happens in slot order.
+     *
+     * @return a map view of this table
+     */
+    public Map<Integer, T> asMap() {
+        if (view == null) {
+            view = new View();
+        }
+        return view;
+    }
+
+    private void own() {
+        if (shared) { // copy on write
+            values = values.clone();
+            shared = false;
+        }
+    }
+
+    private static long range(int from, int to) {
+        long upper = to >= 64 ? -1L : (1L << to) - 1;
+        return upper & (-1L << from);
+    }
+
+    private final class View extends AbstractMap<Integer, T> {
+
+        @Override
+        public T get(Object key) {
+            return key instanceof Integer slot ? SlotTable.this.get(slot) : null;
+        }
+
+        @Override
+        public T put(Integer key, T value) {
+            return SlotTable.this.put(key, value);
+        }
+
+        @Override
+        public T remove(Object key) {
+            return key instanceof Integer slot ? SlotTable.this.remove(slot) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer slot && contains(slot);
+        }
+
+        @Override
+        public int size() {
+            return SlotTable.this.size();
+        }
+
+        @Override
+        public void clear() {
+            SlotTable.this.clear();
+        }
+
+        @Override
+        public @NotNull Set<Entry<Integer, T>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Entry<Integer, T>> iterator() {
+                    return new Iterator<>() {
+                        private int last = -1;
+                        private int next = SlotTable.this.next(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != -1;
+                        }
+
+                        @Override
+                        public Entry<Integer, T> next() {
+                            if (next == -1) {
+                                throw new NoSuchElementException();
+                            }
+                            last = next;
+                            next = SlotTable.this.next(last + 1);
+
+                            int slot = last;
+                            return new SimpleEntry<>(slot, SlotTable.this.get(slot)) {
+                                @Override
+                                public T setValue(T value) {
+                                    super.setValue(value);
+                                    return SlotTable.this.put(slot, value);
+                                }
+                            };
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == -1) {
+                                throw new IllegalStateException();
+                            }
+                            SlotTable.this.remove(last);
+                            last = -1;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return SlotTable.this.size();
+                }
+            };
+        }
+    }
+}
@@ -1,36 +1,12 @@
 package dev.efnilite.gui.util.collections;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
 
 public class ViMap<K, V> extends HashMap<K, V> {
 
-    public Map<K, V> sortKeys() {
-        return entrySet()
-                .stream()
-                .sorted()
-                .collect(Collectors.toMap(
-                        Entry::getKey,
-                        Entry::getValue,
-                        (a, b) -> a,
-                        LinkedHashMap::new
-                ));
-    }
-
-    public Map<K, V> sortValues() {
-        return entrySet()
-                .stream()
-                .sorted()
-                .collect(Collectors.toMap(
-                        Entry::getKey,
-                        Entry::getValue,
-                        (a, b) -> a,
-                        LinkedHashMap::new
-                ));
-    }
-
-
     public K randomKey() {
         List<K> keys = new ArrayList<>(keySet());
         return keys.get(ThreadLocalRandom.current().nextInt(keys.size() - 1));
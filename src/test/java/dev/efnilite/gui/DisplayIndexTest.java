@@ -0,0 +1,205 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.MenuItem;
+import org.bukkit.inventory.ItemStack;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DisplayIndexTest {
+
+    private static final Comparator<MenuItem> BY_VALUE = Comparator.comparingInt(item -> ((Entry) item).value);
+
+    private final DisplayList entries = new DisplayList();
+    private final DisplayIndex index = new DisplayIndex(entries);
+
+    DisplayIndexTest() {
+        index.sortKey("value", BY_VALUE);
+        index.filterKey("even", item -> ((Entry) item).value % 2 == 0);
+    }
+
+    private static List<MenuItem> entries(int... values) {
+        List<MenuItem> result = new ArrayList<>();
+        for (int value : values) {
+            result.add(new Entry(value));
+        }
+        return result;
+    }
+
+    private int[] displayed() {
+        return index.fetch(0, index.size()).stream().mapToInt(item -> ((Entry) item).value).toArray();
+    }
+
+    @Test
+    void insertShiftsSortedAndFilteredView() {
+        index.append(entries(8, 2, 6, 4));
+        index.sortBy("value");
+        index.filterBy("even");
+        assertArrayEquals(new int[] {2, 4, 6, 8}, displayed());
+        index.pollChanged();
+
+        index.insert(0, new Entry(5)); // filtered out, so nothing visible changes
+        assertArrayEquals(new int[] {2, 4, 6, 8}, displayed());
+        assertEquals(Integer.MAX_VALUE, index.pollChanged());
+
+        index.insert(1, new Entry(3));
+        index.insert(2, new Entry(0));
+        assertArrayEquals(new int[] {0, 2, 4, 6, 8}, displayed());
+        assertEquals(0, index.pollChanged());
+
+        index.insert(entries.size(), new Entry(7));
+        index.insert(entries.size(), new Entry(10));
+        assertArrayEquals(new int[] {0, 2, 4, 6, 8, 10}, displayed());
+        assertEquals(5, index.pollChanged());
+    }
+
+    @Test
+    void removeShiftsSortedAndFilteredView() {
+        index.append(entries(8, 1, 2, 6, 3, 4));
+        index.sortBy("value");
+        index.filterBy("even");
+        index.pollChanged();
+
+        assertEquals(1, ((Entry) index.remove(1)).value); // filtered out
+        assertArrayEquals(new int[] {2, 4, 6, 8}, displayed());
+        assertEquals(Integer.MAX_VALUE, index.pollChanged());
+
+        assertEquals(6, ((Entry) index.remove(2)).value);
+        assertArrayEquals(new int[] {2, 4, 8}, displayed());
+        assertEquals(2, index.pollChanged());
+
+        assertEquals(8, ((Entry) index.remove(0)).value);
+        assertArrayEquals(new int[] {2, 4}, displayed());
+        assertEquals(2, index.pollChanged());
+    }
+
+    @Test
+    void replaceMovesEntryInSortedAndFilteredView() {
+        index.append(entries(2, 4, 6, 8));
+        index.sortBy("value");
+        index.filterBy("even");
+        index.pollChanged();
+
+        index.replace(0, new Entry(10)); // moves from the start to the end
+        assertArrayEquals(new int[] {4, 6, 8, 10}, displayed());
+        assertEquals(0, index.pollChanged());
+
+        index.replace(3, new Entry(9)); // the 8 is filtered out now
+        assertArrayEquals(new int[] {4, 6, 10}, displayed());
+        assertEquals(2, index.pollChanged());
+
+        index.replace(3, new Entry(5)); // still filtered out
+        assertEquals(Integer.MAX_VALUE, index.pollChanged());
+    }
+
+    @Test
+    void equalEntriesKeepInsertionOrder() {
+        Entry first = new Entry(1);
+        Entry second = new Entry(1);
+        index.append(List.of(first, second));
+        index.sortBy("value");
+
+        Entry between = new Entry(1);
+        index.insert(1, between);
+        assertEquals(List.of(first, between, second), index.fetch(0, 3));
+    }
+
+    @Test
+    void directChangesAreNoticed() {
+        index.append(entries(3, 1, 2));
+        index.sortBy("value");
+        assertArrayEquals(new int[] {1, 2, 3}, displayed());
+        index.pollChanged();
+
+        entries.set(0, new Entry(0)); // not through the index
+        assertArrayEquals(new int[] {0, 1, 2}, displayed());
+        assertEquals(0, index.pollChanged());
+    }
+
+    @Test
+    void setKeepsCommonPrefix() {
+        List<MenuItem> items = entries(1, 2, 3, 4);
+        index.append(items);
+        index.pollChanged();
+
+        List<MenuItem> changed = new ArrayList<>(items.subList(0, 2));
+        changed.add(new Entry(9));
+        index.set(changed);
+        assertArrayEquals(new int[] {1, 2, 9}, displayed());
+        assertEquals(2, index.pollChanged());
+    }
+
+    @Test
+    void matchesNaiveViewAfterRandomEdits() {
+        Random random = new Random(42);
+        index.append(entries(random.ints(50, 0, 100).toArray()));
+        boolean sorted = false;
+        boolean filtered = false;
+
+        for (int round = 0; round < 2000; round++) {
+            switch (random.nextInt(5)) {
+                case 0 -> index.insert(random.nextInt(entries.size() + 1), new Entry(random.nextInt(100)));
+                case 1 -> {
+                    if (!entries.isEmpty()) {
+                        index.remove(random.nextInt(entries.size()));
+                    }
+                }
+                case 2 -> {
+                    if (!entries.isEmpty()) {
+                        index.replace(random.nextInt(entries.size()), new Entry(random.nextInt(100)));
+                    }
+                }
+                case 3 -> {
+                    sorted = random.nextBoolean();
+                    index.sortBy(sorted ? "value" : null);
+                }
+                default -> {
+                    filtered = random.nextBoolean();
+                    if (filtered) {
+                        index.filterBy("even");
+                    } else {
+                        index.filterBy();
+                    }
+                }
+            }
+
+            List<MenuItem> expected = new ArrayList<>(entries);
+            if (sorted) {
+                expected.sort(BY_VALUE);
+            }
+            if (filtered) {
+                expected.removeIf(item -> ((Entry) item).value % 2 != 0);
+            }
+            assertEquals(expected, new ArrayList<>(index.fetch(0, index.size())), "round " + round);
+        }
+    }
+
+    private static final class Entry extends MenuItem {
+
+        private final int value;
+
+        private Entry(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public ItemStack build() {
+            return null;
+        }
+
+        @Override
+        public boolean isMovable() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package dev.efnilite.gui;
+
+import dev.efnilite.gui.item.Item;
+import org.bukkit.Material;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private static SearchIndex index(String... names) {
+        SearchIndex index = new SearchIndex();
+        for (String name : names) {
+            index.add(new Item(Material.STONE, name));
+        }
+        return index;
+    }
+
+    private static BitSet bits(int... positions) {
+        BitSet set = new BitSet();
+        for (int position : positions) {
+            set.set(position);
+        }
+        return set;
+    }
+
+    @Test
+    void matchesNameIgnoringCaseAndTags() {
+        SearchIndex index = index("<red>Diamond Sword", "Iron Sword", "<bold>DIAMOND</bold> Pickaxe", "Dirt");
+
+        assertEquals(bits(0, 2), index.search("diamond"));
+        assertEquals(bits(0, 1), index.search("SWORD"));
+        assertEquals(bits(0, 2, 3), index.search("di"));
+    }
+
+    @Test
+    void matchesLore() {
+        SearchIndex index = new SearchIndex();
+        index.add(new Item(Material.STONE, "Apple").lore("Restores hunger"));
+        index.add(new Item(Material.STONE, "Stone"));
+
+        assertEquals(bits(0), index.search("hunger"));
+    }
+
+    @Test
+    void extendingQueryNarrowsPreviousResult() {
+        SearchIndex index = index("apple", "apricot", "banana", "grape", "application");
+
+        assertEquals(bits(0, 1, 3, 4), index.search("ap")); // grape too
+        assertEquals(bits(0, 4), index.search("app"));
+        assertEquals(bits(4), index.search("appli"));
+        assertEquals(new BitSet(), index.search("applix"));
+    }
+
+    @Test
+    void backspaceWidensResultAgain() {
+        SearchIndex index = index("apple", "apricot", "banana", "grape", "application");
+
+        assertEquals(bits(4), index.search("appli"));
+        assertEquals(bits(0, 4), index.search("appl"));
+        assertEquals(bits(0, 4), index.search("app"));
+        assertEquals(bits(0, 1, 3, 4), index.search("ap"));
+    }
+
+    @Test
+    void narrowingMatchesFreshSearch() {
+        String[] names = {"red wool", "red sand", "redstone", "sandstone", "stone", "wool", "sand"};
+        String[] typed = {"s", "st", "sto", "ston", "stone", "ston", "sto", "st", "s", "sa", "san", "sand", "sands"};
+
+        SearchIndex typing = index(names);
+        for (String query : typed) {
+            assertEquals(index(names).search(query), typing.search(query), query);
+        }
+    }
+
+    @Test
+    void trigramsOutOfOrderDontMatch() {
+        SearchIndex index = index("abcxbcd", "abcd");
+
+        assertEquals(bits(1), index.search("abcd")); // both contain "abc" and "bcd"
+    }
+
+    @Test
+    void insertAndRemoveKeepLastResult() {
+        SearchIndex index = index("oak log", "birch log", "stone");
+        assertEquals(bits(0, 1), index.search("log"));
+
+        index.insert(0, new Item(Material.STONE, "spruce log"));
+        assertEquals(bits(0, 1, 2), index.search("log"));
+
+        index.remove(1);
+        assertEquals(bits(0, 1), index.search("log"));
+        assertEquals(bits(2), index.search("stone"));
+        assertEquals(3, index.size());
+    }
+}
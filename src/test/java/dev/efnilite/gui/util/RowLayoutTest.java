@@ -0,0 +1,114 @@
+package dev.efnilite.gui.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowLayoutTest {
+
+    // applies the moves to a row in which the item in column n is n + 1, and returns the row
+    private static int[] arrange(RowLayout layout, int mask) {
+        int[] row = new int[9];
+        for (int column = 0; column < 9; column++) {
+            if ((mask & (1 << column)) != 0) {
+                row[column] = column + 1;
+            }
+        }
+
+        int[] moves = layout.getMoves(mask);
+        assertEquals(0, moves.length % 2, "moves must be pairs");
+        for (int i = 0; i < moves.length; i += 2) {
+            int from = moves[i];
+            int to = moves[i + 1];
+            assertNotEquals(0, row[from], "moved an empty column " + from + " for mask " + mask);
+            assertEquals(0, row[to], "overwrote column " + to + " for mask " + mask);
+            row[to] = row[from];
+            row[from] = 0;
+        }
+        return row;
+    }
+
+    // the items of a row at the given columns, in their original order
+    private static int[] expected(int mask, int... columns) {
+        int[] row = new int[9];
+        int i = 0;
+        for (int column = 0; column < 9; column++) {
+            if ((mask & (1 << column)) != 0) {
+                row[columns[i++]] = column + 1;
+            }
+        }
+        return row;
+    }
+
+    private static int[] range(int from, int to) {
+        int[] columns = new int[to - from];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = from + i;
+        }
+        return columns;
+    }
+
+    @Test
+    void leftMovesItemsToTheStart() {
+        for (int mask = 0; mask < 512; mask++) {
+            int amount = Integer.bitCount(mask);
+            assertArrayEquals(expected(mask, range(0, amount)), arrange(RowLayout.LEFT, mask), "mask " + mask);
+        }
+    }
+
+    @Test
+    void rightMovesItemsToTheEnd() {
+        for (int mask = 0; mask < 512; mask++) {
+            int amount = Integer.bitCount(mask);
+            assertArrayEquals(expected(mask, range(9 - amount, 9)), arrange(RowLayout.RIGHT, mask), "mask " + mask);
+        }
+    }
+
+    @Test
+    void centerMovesItemsToTheMiddle() {
+        for (int mask = 0; mask < 512; mask++) {
+            int amount = Integer.bitCount(mask);
+            int from = (9 - amount) / 2;
+            assertArrayEquals(expected(mask, range(from, from + amount)), arrange(RowLayout.CENTER, mask), "mask " + mask);
+        }
+    }
+
+    @Test
+    void evenKeepsTheMiddleFreeForEvenAmounts() {
+        int[][] columns = {
+                {}, {4}, {3, 5}, {3, 4, 5}, {2, 3, 5, 6}, {2, 3, 4, 5, 6},
+                {1, 2, 3, 5, 6, 7}, {1, 2, 3, 4, 5, 6, 7}, {0, 1, 2, 3, 5, 6, 7, 8}, {0, 1, 2, 3, 4, 5, 6, 7, 8}
+        };
+        for (int mask = 0; mask < 512; mask++) {
+            assertArrayEquals(expected(mask, columns[Integer.bitCount(mask)]), arrange(RowLayout.EVEN, mask), "mask " + mask);
+        }
+    }
+
+    @Test
+    void patternPlacesItemsInMarkedColumns() {
+        RowLayout layout = RowLayout.pattern("x-x-x-x-x");
+        for (int mask = 0; mask < 512; mask++) {
+            int amount = Integer.bitCount(mask);
+            if (amount > 5) { // more items than marked columns, left as-is
+                assertEquals(0, layout.getMoves(mask).length, "mask " + mask);
+                continue;
+            }
+            assertArrayEquals(expected(mask, Arrays.copyOf(new int[] {0, 2, 4, 6, 8}, amount)), arrange(layout, mask), "mask " + mask);
+        }
+    }
+
+    @Test
+    void arrangedRowsHaveNoMoves() {
+        assertEquals(0, RowLayout.LEFT.getMoves(0b000000111).length);
+        assertEquals(0, RowLayout.RIGHT.getMoves(0b111000000).length);
+        assertEquals(0, RowLayout.CENTER.getMoves(0b000111000).length);
+        assertEquals(0, RowLayout.EVEN.getMoves(0b000010000).length);
+    }
+
+    @Test
+    void patternMustBeNineColumns() {
+        assertThrows(IllegalArgumentException.class, () -> RowLayout.pattern("x-x"));
+    }
+}
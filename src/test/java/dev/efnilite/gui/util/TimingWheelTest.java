@@ -0,0 +1,146 @@
+package dev.efnilite.gui.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static void advance(TimingWheel wheel, long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            wheel.tick();
+        }
+    }
+
+    // schedules every delay, and checks that each action runs exactly once, on its deadline
+    private static void assertRunsOnTime(TimingWheel wheel, long... delays) {
+        long start = wheel.getTick();
+        long[] ranAt = new long[delays.length];
+        long last = 0;
+        for (int i = 0; i < delays.length; i++) {
+            int timer = i;
+            wheel.schedule(delays[i], 0, () -> {
+                assertEquals(0, ranAt[timer], "ran twice");
+                ranAt[timer] = wheel.getTick();
+            });
+            last = Math.max(last, delays[i]);
+        }
+
+        advance(wheel, last + 1);
+        for (int i = 0; i < delays.length; i++) {
+            assertEquals(start + delays[i], ranAt[i], "delay " + delays[i]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void runsAtLevelBoundaries() {
+        assertRunsOnTime(new TimingWheel(), 1, 2, 63, 64, 65, 127, 128, 4095, 4096, 4097, 262143, 262144, 262145);
+    }
+
+    @Test
+    void cascadesFromUnalignedTick() {
+        TimingWheel wheel = new TimingWheel();
+        advance(wheel, 4000); // close to the wrap of the second level
+
+        assertRunsOnTime(wheel, 1, 63, 64, 95, 96, 97, 200, 4096, 5000, 300000);
+    }
+
+    @Test
+    void cascadesRandomDelays() {
+        Random random = new Random(3);
+        TimingWheel wheel = new TimingWheel();
+        advance(wheel, random.nextInt(10000));
+
+        long[] delays = new long[500];
+        for (int i = 0; i < delays.length; i++) {
+            delays[i] = 1 + random.nextInt(random.nextBoolean() ? 5000 : 300000);
+        }
+        assertRunsOnTime(wheel, delays);
+    }
+
+    @Test
+    void runsAtMaximumDelay() {
+        TimingWheel wheel = new TimingWheel();
+        advance(wheel, 12345);
+
+        assertRunsOnTime(wheel, TimingWheel.MAX_DELAY, TimingWheel.MAX_DELAY - 1, 1L << 18);
+    }
+
+    @Test
+    void longerDelaysAreShortened() {
+        TimingWheel wheel = new TimingWheel();
+        long[] ranAt = new long[1];
+        wheel.schedule(Long.MAX_VALUE, 0, () -> ranAt[0] = wheel.getTick());
+
+        advance(wheel, TimingWheel.MAX_DELAY);
+        assertEquals(TimingWheel.MAX_DELAY, ranAt[0]);
+    }
+
+    @Test
+    void repeatsWithPeriodAcrossLevels() {
+        TimingWheel wheel = new TimingWheel();
+        List<Long> runs = new ArrayList<>();
+        wheel.schedule(10, 100, () -> runs.add(wheel.getTick()));
+
+        advance(wheel, 10 + 100 * 50);
+        assertEquals(51, runs.size());
+        for (int i = 0; i < runs.size(); i++) {
+            assertEquals(10 + 100L * i, (long) runs.get(i));
+        }
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void cancelledTimersDontRun() {
+        TimingWheel wheel = new TimingWheel();
+        boolean[] ran = new boolean[2];
+        TimingWheel.Timer near = wheel.schedule(5, 0, () -> ran[0] = true);
+        TimingWheel.Timer far = wheel.schedule(5000, 0, () -> ran[1] = true);
+
+        advance(wheel, 4096); // far has cascaded down a level
+        near.cancel();
+        far.cancel();
+        advance(wheel, 5000);
+
+        assertTrue(ran[0]);
+        assertFalse(ran[1]);
+        assertFalse(far.isScheduled());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void expireRunsOnceImmediately() {
+        TimingWheel wheel = new TimingWheel();
+        int[] runs = new int[1];
+        TimingWheel.Timer timer = wheel.schedule(1000, 0, () -> runs[0]++);
+
+        timer.expire();
+        timer.expire();
+        advance(wheel, 1000);
+
+        assertEquals(1, runs[0]);
+    }
+
+    @Test
+    void failingActionDoesNotStopOthers() {
+        TimingWheel wheel = new TimingWheel();
+        boolean[] ran = new boolean[1];
+        wheel.schedule(1, 0, () -> {
+            throw new IllegalStateException("first");
+        });
+        wheel.schedule(1, 0, () -> ran[0] = true);
+
+        assertThrows(IllegalStateException.class, wheel::tick);
+        assertTrue(ran[0]);
+    }
+
+    @Test
+    void negativePeriodThrows() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel().schedule(1, -1, () -> {}));
+    }
+}
@@ -0,0 +1,118 @@
+package dev.efnilite.gui.util.collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlotTableTest {
+
+    @Test
+    void putAndIterateInSlotOrder() {
+        SlotTable<String> table = new SlotTable<>();
+        table.put(53, "last");
+        table.put(0, "first");
+        table.put(17, "middle");
+
+        assertEquals(0, table.next(0));
+        assertEquals(17, table.next(1));
+        assertEquals(53, table.next(18));
+        assertEquals(-1, table.next(54));
+        assertEquals(3, table.size());
+        assertEquals("middle", table.get(17));
+        assertEquals((1L << 0) | (1L << 17) | (1L << 53), table.mask());
+    }
+
+    @Test
+    void putNullEmptiesSlot() {
+        SlotTable<String> table = new SlotTable<>();
+        table.put(4, "a");
+
+        assertEquals("a", table.put(4, null));
+        assertFalse(table.contains(4));
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    void copyDoesNotSeeChangesToOriginal() {
+        SlotTable<String> original = new SlotTable<>();
+        original.put(1, "a");
+        original.put(2, "b");
+
+        SlotTable<String> copy = original.copy();
+        original.put(1, "changed");
+        original.remove(2);
+        original.put(3, "added");
+
+        assertEquals("a", copy.get(1));
+        assertEquals("b", copy.get(2));
+        assertNull(copy.get(3));
+        assertEquals((1L << 1) | (1L << 2), copy.mask());
+    }
+
+    @Test
+    void originalDoesNotSeeChangesToCopy() {
+        SlotTable<String> original = new SlotTable<>();
+        original.put(1, "a");
+
+        SlotTable<String> copy = original.copy();
+        copy.put(1, "changed");
+        copy.put(5, "added");
+
+        assertEquals("a", original.get(1));
+        assertNull(original.get(5));
+        assertEquals(1, original.size());
+    }
+
+    @Test
+    void copiesOfCopiesAreIsolated() {
+        SlotTable<String> original = new SlotTable<>();
+        original.put(0, "a");
+        SlotTable<String> first = original.copy();
+        SlotTable<String> second = first.copy();
+
+        first.put(0, "first");
+        second.put(0, "second");
+
+        assertEquals("a", original.get(0));
+        assertEquals("first", first.get(0));
+        assertEquals("second", second.get(0));
+    }
+
+    @Test
+    void fillAndClearOnCopyKeepOriginal() {
+        SlotTable<String> original = new SlotTable<>();
+        original.put(2, "a");
+
+        SlotTable<String> filled = original.copy();
+        filled.fill("filler", 9);
+        SlotTable<String> cleared = original.copy();
+        cleared.clear();
+
+        assertEquals(9, filled.size());
+        assertEquals("a", filled.get(2));
+        assertEquals("filler", filled.get(0));
+        assertTrue(cleared.isEmpty());
+        assertEquals(1, original.size());
+        assertNull(original.get(0));
+        assertEquals("a", original.get(2));
+    }
+
+    @Test
+    void mapViewWritesThrough() {
+        SlotTable<String> table = new SlotTable<>();
+        table.asMap().put(8, "a");
+        table.asMap().entrySet().iterator().next().setValue("b");
+
+        assertEquals("b", table.get(8));
+        table.asMap().remove(8);
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    void putOutsideTableThrows() {
+        SlotTable<String> table = new SlotTable<>();
+
+        assertThrows(IndexOutOfBoundsException.class, () -> table.put(SlotTable.SIZE, "a"));
+        assertNull(table.get(-1));
+    }
+}